@@ -0,0 +1,82 @@
+package com.viser.StockTrade.benchmark;
+
+import com.viser.StockTrade.StockTradeApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Starts the application without the web server for the benchmarks that need a MySQL database.
+ *
+ * The database is configured with the {@code benchmark.jdbc.url}, {@code benchmark.jdbc.user} and
+ * {@code benchmark.jdbc.password} system properties. It must be empty on the first start, when Flyway migrates it.
+ */
+final class BenchmarkApplication {
+    static final String CATEGORY = "Benchmark Category";
+    static final String SUPPLIER = "Benchmark Supplier";
+
+    private BenchmarkApplication() {
+    }
+
+    /**
+     * Starts the application with the benchmark database. Invoices are not rendered ahead of time, so the rendering
+     * does not compete with the measured writes.
+     *
+     * @param properties additional application properties
+     * @return the started application context
+     */
+    static ConfigurableApplicationContext start(Map<String, Object> properties) {
+        String url = System.getProperty("benchmark.jdbc.url", "jdbc:mysql://localhost:3306/stock_trade_benchmark");
+        String batchedUrl = url + (url.contains("?") ? "&" : "?") + "rewriteBatchedStatements=true";
+        String user = System.getProperty("benchmark.jdbc.user", "root");
+        String password = System.getProperty("benchmark.jdbc.password", "root");
+        Map<String, Object> allProperties = new HashMap<>();
+        allProperties.put("spring.datasource.url", batchedUrl);
+        allProperties.put("spring.datasource.username", user);
+        allProperties.put("spring.datasource.password", password);
+        allProperties.put("spring.flyway.url", batchedUrl);
+        allProperties.put("spring.flyway.user", user);
+        allProperties.put("spring.flyway.password", password);
+        allProperties.put("spring.flyway.locations", "classpath:db/baseline,classpath:db/migration");
+        allProperties.put("spring.jpa.properties.hibernate.show_sql", "false");
+        allProperties.put("myapp.custom.invoice.prerender.max-queue-depth", "0");
+        allProperties.putAll(properties);
+        // Passed as command line arguments, which take precedence over application.properties.
+        String[] args = allProperties.entrySet().stream()
+                .map(property -> "--" + property.getKey() + "=" + property.getValue())
+                .toArray(String[]::new);
+        return new SpringApplicationBuilder(StockTradeApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args);
+    }
+
+    /**
+     * Creates the benchmark category, supplier and products, unless they already exist.
+     *
+     * @param context the application context
+     * @param count the number of products
+     * @return the names of the products
+     */
+    static List<String> createProducts(ConfigurableApplicationContext context, int count) {
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("INSERT INTO category (name) SELECT ? FROM DUAL WHERE NOT EXISTS (SELECT 1 FROM category WHERE name = ?)",
+                CATEGORY, CATEGORY);
+        jdbcTemplate.update("INSERT INTO supplier (name) SELECT ? FROM DUAL WHERE NOT EXISTS (SELECT 1 FROM supplier WHERE name = ?)",
+                SUPPLIER, SUPPLIER);
+        List<String> names = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String name = "Benchmark Product " + i;
+            names.add(name);
+            jdbcTemplate.update("INSERT INTO product (name, price, stock_quantity, category_id, supplier_id) "
+                    + "SELECT ?, 9.99, 0, c.id, s.id FROM category c, supplier s WHERE c.name = ? AND s.name = ? "
+                    + "AND NOT EXISTS (SELECT 1 FROM product WHERE name = ?)", name, CATEGORY, SUPPLIER, name);
+        }
+        return names;
+    }
+}
@@ -0,0 +1,69 @@
+package com.viser.StockTrade.benchmark;
+
+import com.viser.StockTrade.entity.Purchase;
+import com.viser.StockTrade.entity.PurchaseItem;
+import com.viser.StockTrade.entity.Supplier;
+import com.viser.StockTrade.service.ReportTemplateRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.sf.jasperreports.engine.DefaultJasperReportsContext;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Synthetic purchases and services for the invoice benchmarks, built without a database or Spring context.
+ */
+final class InvoiceBenchmarkData {
+
+    private InvoiceBenchmarkData() {
+    }
+
+    /**
+     * Allows the benchmarks to run on machines without the fonts used by the templates.
+     */
+    static void ignoreMissingFonts() {
+        DefaultJasperReportsContext.getInstance().setProperty("net.sf.jasperreports.awt.ignore.missing.font", "true");
+    }
+
+    static ReportTemplateRegistry templateRegistry() {
+        ReportTemplateRegistry registry = new ReportTemplateRegistry(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(registry, "checkInterval", Duration.ofDays(1));
+        return registry;
+    }
+
+    static Supplier supplier() {
+        Supplier supplier = new Supplier();
+        supplier.setId(1);
+        supplier.setName("Benchmark Supplier");
+        supplier.setAddress("Kneza Mihaila 33D, Arandjelovac");
+        supplier.setEmail("supplier@example.com");
+        supplier.setPhone("0652010241");
+        return supplier;
+    }
+
+    static Purchase purchase(int itemCount) {
+        Purchase purchase = new Purchase();
+        purchase.setId(1);
+        purchase.setDate(LocalDate.of(2024, 1, 15));
+        purchase.setSupplierName("Benchmark Supplier");
+        List<PurchaseItem> items = new ArrayList<>(itemCount);
+        double total = 0;
+        for (int i = 0; i < itemCount; i++) {
+            PurchaseItem item = new PurchaseItem();
+            item.setId(i + 1);
+            item.setPurchase(purchase);
+            item.setProductName("Product " + i);
+            item.setProductCategory("Category " + (i % 10));
+            item.setQuantity(1 + i % 20);
+            item.setPrice(9.99 + i % 100);
+            total += item.getQuantity() * item.getPrice();
+            items.add(item);
+        }
+        purchase.setPurchaseItems(items);
+        purchase.setTotalAmount(total);
+        return purchase;
+    }
+}
@@ -0,0 +1,61 @@
+package com.viser.StockTrade.benchmark;
+
+import com.viser.StockTrade.entity.Purchase;
+import com.viser.StockTrade.entity.Supplier;
+import com.viser.StockTrade.dto.InvoiceDto;
+import com.viser.StockTrade.service.InvoiceService;
+import com.viser.StockTrade.service.JasperInvoiceRenderer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JasperPrint;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures filling the compiled invoice template and exporting it to PDF for purchases of different sizes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InvoiceRenderBenchmark {
+
+    @Param({"1", "50", "1000", "10000"})
+    private int itemCount;
+
+    private JasperInvoiceRenderer renderer;
+    private Purchase purchase;
+    private Supplier supplier;
+    private List<InvoiceDto> lines;
+    private JasperPrint filledInvoice;
+
+    @Setup(Level.Trial)
+    public void setUp() throws JRException {
+        InvoiceBenchmarkData.ignoreMissingFonts();
+        renderer = new JasperInvoiceRenderer(InvoiceBenchmarkData.templateRegistry(), new SimpleMeterRegistry());
+        purchase = InvoiceBenchmarkData.purchase(itemCount);
+        supplier = InvoiceBenchmarkData.supplier();
+        lines = InvoiceService.getInvoiceList(purchase);
+        filledInvoice = renderer.fillInvoice(purchase, supplier, lines);
+    }
+
+    @Benchmark
+    public JasperPrint fill() throws JRException {
+        return renderer.fillInvoice(purchase, supplier, lines);
+    }
+
+    @Benchmark
+    public void export() throws JRException {
+        renderer.exportPdf(filledInvoice, OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public void fillAndExport() throws JRException {
+        renderer.exportPdf(renderer.fillInvoice(purchase, supplier, lines), OutputStream.nullOutputStream());
+    }
+}
@@ -0,0 +1,66 @@
+package com.viser.StockTrade.benchmark;
+
+import com.viser.StockTrade.dto.InvoiceDto;
+import com.viser.StockTrade.entity.Purchase;
+import com.viser.StockTrade.entity.Supplier;
+import com.viser.StockTrade.service.DirectPdfInvoiceRenderer;
+import com.viser.StockTrade.service.HtmlInvoiceRenderer;
+import com.viser.StockTrade.service.InvoiceRenderer;
+import com.viser.StockTrade.service.InvoiceService;
+import com.viser.StockTrade.service.JasperInvoiceRenderer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import net.sf.jasperreports.engine.JRException;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the latency of the invoice renderers for purchases of different sizes.
+ *
+ * Run with {@code -Djmh.args="-prof gc"} to also compare the allocation rate per rendered invoice.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InvoiceRendererComparisonBenchmark {
+
+    @Param({"jasper", "direct", "html"})
+    private String rendererName;
+
+    @Param({"1", "50", "1000", "10000"})
+    private int itemCount;
+
+    private InvoiceRenderer renderer;
+    private Purchase purchase;
+    private Supplier supplier;
+    private List<InvoiceDto> lines;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        InvoiceBenchmarkData.ignoreMissingFonts();
+        renderer = switch (rendererName) {
+            case "jasper" -> new JasperInvoiceRenderer(InvoiceBenchmarkData.templateRegistry(), new SimpleMeterRegistry());
+            case "direct" -> {
+                DirectPdfInvoiceRenderer direct = new DirectPdfInvoiceRenderer();
+                direct.loadImages();
+                yield direct;
+            }
+            case "html" -> new HtmlInvoiceRenderer();
+            default -> throw new IllegalArgumentException("Unknown renderer " + rendererName);
+        };
+        purchase = InvoiceBenchmarkData.purchase(itemCount);
+        supplier = InvoiceBenchmarkData.supplier();
+        lines = InvoiceService.getInvoiceList(purchase);
+    }
+
+    @Benchmark
+    public void render() throws JRException {
+        renderer.render(purchase, supplier, lines, OutputStream.nullOutputStream());
+    }
+}
@@ -0,0 +1,30 @@
+package com.viser.StockTrade.benchmark;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JasperCompileManager;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.xml.JRXmlLoader;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures loading and compiling the invoice template, the cost the template registry pays once per template version.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InvoiceTemplateBenchmark {
+
+    @Benchmark
+    public JasperReport loadAndCompile() throws JRException, IOException {
+        try (InputStream input = getClass().getResourceAsStream("/invoice.jrxml")) {
+            return JasperCompileManager.compileReport(JRXmlLoader.load(input));
+        }
+    }
+}
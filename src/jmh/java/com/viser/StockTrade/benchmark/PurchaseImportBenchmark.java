@@ -0,0 +1,72 @@
+package com.viser.StockTrade.benchmark;
+
+import com.viser.StockTrade.dto.PurchaseImportReportDto;
+import com.viser.StockTrade.service.PurchaseImportService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the sustained number of CSV rows per second {@link PurchaseImportService} imports, with the chunk size of
+ * {@code application.properties}.
+ *
+ * Every invocation imports a file of {@value #ROWS} rows, grouped into purchases of {@value #ITEMS_PER_PURCHASE}
+ * items by their reference, so the score is in rows per second. The database is set up as described in
+ * {@link BenchmarkApplication}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PurchaseImportBenchmark {
+    private static final int ROWS = 10000;
+    private static final int ITEMS_PER_PURCHASE = 5;
+    private static final int PRODUCT_COUNT = 100;
+
+    private ConfigurableApplicationContext context;
+    private PurchaseImportService purchaseImportService;
+    private byte[] file;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start(Map.of());
+        purchaseImportService = context.getBean(PurchaseImportService.class);
+        List<String> products = BenchmarkApplication.createProducts(context, PRODUCT_COUNT);
+
+        String date = LocalDate.now().plusDays(1).toString();
+        StringBuilder csv = new StringBuilder("reference,supplier,date,product,quantity,price\n");
+        for (int i = 0; i < ROWS; i++) {
+            csv.append("P").append(i / ITEMS_PER_PURCHASE).append(',')
+                    .append(BenchmarkApplication.SUPPLIER).append(',')
+                    .append(date).append(',')
+                    .append(products.get(i % PRODUCT_COUNT)).append(',')
+                    .append(1 + i % 20).append(',')
+                    .append(9.99 + i % 100).append('\n');
+        }
+        file = csv.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public PurchaseImportReportDto importPurchases() throws IOException {
+        PurchaseImportReportDto report = purchaseImportService.importPurchases(new ByteArrayInputStream(file), PurchaseImportService.TEXT_CSV);
+        if (report.getPurchasesFailed() > 0) {
+            throw new IllegalStateException("Rejected rows: " + report.getErrors());
+        }
+        return report;
+    }
+}
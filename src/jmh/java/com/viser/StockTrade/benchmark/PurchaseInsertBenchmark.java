@@ -0,0 +1,94 @@
+package com.viser.StockTrade.benchmark;
+
+import com.viser.StockTrade.dto.PurchaseDto;
+import com.viser.StockTrade.dto.PurchasesItemDto;
+import com.viser.StockTrade.entity.Product;
+import com.viser.StockTrade.service.ProductService;
+import com.viser.StockTrade.service.PurchaseService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how many purchases per second {@link PurchaseService#addAll} saves through the real Hibernate mapping,
+ * comparing {@code IDENTITY} ids with the pooled table ids and JDBC batching.
+ *
+ * In {@code identity} mode the ids of purchases and purchase items are mapped back to {@code AUTO_INCREMENT} with
+ * {@code benchmark/identity-orm.xml}, so Hibernate inserts every row on its own to read its generated key. In
+ * {@code pooled} mode the mapping of the entities is used as it is, with the batch settings of
+ * {@code application.properties}. The database is set up as described in {@link BenchmarkApplication}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PurchaseInsertBenchmark {
+    private static final int PRODUCT_COUNT = 100;
+
+    @Param({"identity", "pooled"})
+    private String idGeneration;
+
+    @Param({"10", "1000"})
+    private int itemCount;
+
+    private ConfigurableApplicationContext context;
+    private PurchaseService purchaseService;
+    private TransactionTemplate transactionTemplate;
+    private Map<String, Product> products;
+    private PurchaseDto purchase;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start(idGeneration.equals("identity")
+                ? Map.of("spring.jpa.mapping-resources", "benchmark/identity-orm.xml")
+                : Map.of());
+        purchaseService = context.getBean(PurchaseService.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        List<String> names = BenchmarkApplication.createProducts(context, PRODUCT_COUNT);
+        products = context.getBean(ProductService.class).getByNames(Set.copyOf(names));
+        if (idGeneration.equals("pooled")) {
+            skipIdentityIds(context.getBean(JdbcTemplate.class));
+        }
+
+        List<PurchasesItemDto> items = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            items.add(new PurchasesItemDto(names.get(i % PRODUCT_COUNT), 1 + i % 20, 9.99 + i % 100));
+        }
+        purchase = new PurchaseDto();
+        purchase.setSupplier(BenchmarkApplication.SUPPLIER);
+        purchase.setDate(LocalDate.now().plusDays(1));
+        purchase.setPurchaseItems(items);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * Moves the table ids past the rows that an earlier run in identity mode inserted with AUTO_INCREMENT, like V3
+     * does when it creates the generator table.
+     */
+    private void skipIdentityIds(JdbcTemplate jdbcTemplate) {
+        for (String table : List.of("purchase", "purchase_item")) {
+            jdbcTemplate.update("UPDATE id_generator SET next_val = GREATEST(next_val, (SELECT COALESCE(MAX(id), 0) + 51 FROM "
+                    + table + ")) WHERE name = ?", table);
+        }
+    }
+
+    @Benchmark
+    public List<Integer> addPurchase() {
+        return transactionTemplate.execute(status -> purchaseService.addAll(List.of(purchase), products));
+    }
+}
@@ -1,18 +1,46 @@
 package com.viser.StockTrade.controller;
 
+import com.viser.StockTrade.dto.DashboardDto;
+import com.viser.StockTrade.enums.ChartBucket;
+import com.viser.StockTrade.enums.PurchaseTotalDimension;
 import com.viser.StockTrade.service.ChartService;
+import com.viser.StockTrade.service.DashboardService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.LocalDate;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/api/charts")
 @RequiredArgsConstructor
 public class ChartController {
+    private static final int MAX_SERIES_YEARS = 10;
+
     private final ChartService chartService;
+    private final DashboardService dashboardService;
+
+    /**
+     * Retrieves the counters and all chart data of the index page in one response.
+     *
+     * This method returns the category, product and supplier counts together with the purchase data grouped by
+     * category, supplier and product. The response is served from an in-memory cache that is rebuilt in the
+     * background when a purchase is committed and before it expires.
+     *
+     * @return a {@link DashboardDto} with the counters and the chart data
+     */
+    @GetMapping("/dashboard")
+    public DashboardDto getDashboard() {
+        return dashboardService.get();
+    }
 
     /**
      * Retrieves purchase data grouped by category.
@@ -52,4 +80,50 @@ public class ChartController {
     public Map<String, Long> getPurchasesByProduct() {
         return chartService.chartPurchaseByProductData();
     }
+
+    /**
+     * Retrieves the purchased quantity per day, week or month in a period.
+     *
+     * This method returns one entry per bucket of the period, keyed by the first day of the bucket. The series can be
+     * restricted to one category, supplier or product; without a filter it covers all purchases. The series is
+     * computed from the daily purchase totals, so its cost depends on the length of the period only.
+     *
+     * @param bucket the size of the buckets: {@code day}, {@code week} or {@code month}
+     * @param from the first day of the period, inclusive
+     * @param to the last day of the period, inclusive
+     * @param categoryId the ID of the category to restrict the series to
+     * @param supplierId the ID of the supplier to restrict the series to
+     * @param productId the ID of the product to restrict the series to
+     * @return a {@link ResponseEntity} with a {@link Map} where each key is the first day of a bucket and each value is
+     *         the quantity purchased in that bucket, or 400 Bad Request if the bucket is unknown, the period is empty
+     *         or longer than ten years, or more than one filter is given
+     */
+    @GetMapping("/purchase-series")
+    public ResponseEntity<Map<LocalDate, Long>> getPurchaseSeries(@RequestParam(value = "bucket", defaultValue = "day") String bucket,
+                                                                  @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                                  @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                                  @RequestParam(value = "categoryId", required = false) Integer categoryId,
+                                                                  @RequestParam(value = "supplierId", required = false) Integer supplierId,
+                                                                  @RequestParam(value = "productId", required = false) Integer productId) {
+        ChartBucket chartBucket;
+        try {
+            chartBucket = ChartBucket.valueOf(bucket.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (from.isAfter(to) || from.plusYears(MAX_SERIES_YEARS).isBefore(to)
+                || Stream.of(categoryId, supplierId, productId).filter(Objects::nonNull).count() > 1) {
+            return ResponseEntity.badRequest().build();
+        }
+        PurchaseTotalDimension dimension = PurchaseTotalDimension.CATEGORY;
+        Integer keyId = categoryId;
+        if (supplierId != null) {
+            dimension = PurchaseTotalDimension.SUPPLIER;
+            keyId = supplierId;
+        } else if (productId != null) {
+            dimension = PurchaseTotalDimension.PRODUCT;
+            keyId = productId;
+        }
+        return ResponseEntity.ok(chartService.chartPurchaseSeries(chartBucket, from, to, dimension, keyId));
+    }
 }
@@ -1,32 +1,237 @@
 package com.viser.StockTrade.controller;
 
+import com.viser.StockTrade.dto.RenderJobDto;
+import com.viser.StockTrade.entity.Supplier;
+import com.viser.StockTrade.exceptions.NotFoundException;
+import com.viser.StockTrade.service.FileResponseService;
+import com.viser.StockTrade.service.InvoiceExportService;
+import com.viser.StockTrade.service.InvoiceRenderJobService;
+import com.viser.StockTrade.service.InvoiceRenderer;
 import com.viser.StockTrade.service.InvoiceService;
+import com.viser.StockTrade.service.SupplierService;
+import com.viser.StockTrade.service.SupplierStatementService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import net.sf.jasperreports.engine.JRException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.PathVariable;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static com.viser.StockTrade.exceptions.ExceptionHelper.throwNotFoundException;
 
 @RestController
 @RequestMapping("/invoices")
 @RequiredArgsConstructor
 public class InvoiceController {
     private final InvoiceService invoiceService;
+    private final InvoiceExportService invoiceExportService;
+    private final SupplierStatementService supplierStatementService;
+    private final SupplierService supplierService;
+    private final InvoiceRenderJobService invoiceRenderJobService;
+    private final FileResponseService fileResponseService;
 
     /**
-     * Retrieves and returns a PDF invoice for the specified ID.
+     * Sends the invoice for the specified ID.
      *
-     * This method fetches the PDF invoice associated with the given ID from the invoice service.
-     * It returns the PDF content as a byte array wrapped in a {@link ResponseEntity} object, allowing the client to
-     * download or view the invoice.
+     * This method writes the invoice straight from the disk cache to the response, rendering it into the cache
+     * first if needed, so the invoice is never copied into a byte array. Single byte ranges are supported, so
+     * viewers can fetch large invoices in pieces. If the client already has the current version of the invoice,
+     * as indicated by the If-None-Match header, a 304 Not Modified response is returned without rendering the
+     * invoice. The renderer can be chosen with the {@code renderer} parameter ({@code jasper}, {@code direct} or
+     * {@code html}); without it the configured default renderer is used.
      *
      * @param id the ID of the invoice to be retrieved
-     * @return a {@link ResponseEntity} containing the PDF invoice as a byte array
+     * @param rendererName the name of the renderer, if any
+     * @param ifNoneMatch the ETags the client already has, if any
+     * @param request the current request
+     * @param response the response the invoice is written to; 400 Bad Request if the renderer does not exist, or
+     *                 404 Not Found if the purchase does not exist
      */
     @GetMapping("/view/{id}")
-    public ResponseEntity<byte[]> viewInvoice(@PathVariable("id") Integer id) throws JRException {
-        return invoiceService.getPdf(id);
+    public void viewInvoice(@PathVariable("id") Integer id,
+                            @RequestParam(value = "renderer", required = false) String rendererName,
+                            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                            HttpServletRequest request, HttpServletResponse response) throws JRException, IOException {
+        InvoiceRenderer renderer = invoiceService.getRenderer(rendererName);
+        if (renderer == null) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
+        String eTag = invoiceService.getETag(id, renderer);
+        if (eTag == null) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        response.setHeader(HttpHeaders.ETAG, eTag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue());
+        if (isNotModified(ifNoneMatch, eTag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        String fileName = MediaType.APPLICATION_PDF.equals(renderer.getContentType()) ? "invoice.pdf" : "invoice.html";
+        fileResponseService.send(() -> invoiceService.getInvoiceFile(id, renderer), renderer.getContentType(),
+                "inline; filename=" + fileName, eTag, request, response);
+    }
+
+    /**
+     * Exports the invoices of all purchases in a date range and/or from a supplier as a ZIP archive.
+     *
+     * This method streams the archive to the client while the invoices are being rendered, so the whole archive
+     * is never held in memory. At least one filter must be given.
+     *
+     * @param from the earliest purchase date, inclusive
+     * @param to the latest purchase date, inclusive
+     * @param supplier the name of the supplier
+     * @return a {@link ResponseEntity} streaming the ZIP archive, or 400 Bad Request if no filter is given
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportInvoices(@RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                                @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                                @RequestParam(value = "supplier", required = false) String supplier) {
+        if (from == null && to == null && supplier == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=invoices.zip")
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .body(invoiceExportService.exportZip(from, to, supplier));
+    }
+
+    /**
+     * Generates the consolidated statement PDF of all purchases from a supplier in the given period.
+     *
+     * This method streams the statement to the client, so even statements with tens of thousands of lines are
+     * never held in memory as a whole.
+     *
+     * @param supplierId the ID of the supplier
+     * @param from the first day of the period, inclusive
+     * @param to the last day of the period, inclusive
+     * @return a {@link ResponseEntity} streaming the statement PDF
+     * @throws NotFoundException if no supplier with the specified ID is found
+     */
+    @GetMapping("/statement/{supplierId}")
+    public ResponseEntity<StreamingResponseBody> viewStatement(@PathVariable("supplierId") Integer supplierId,
+                                                               @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                               @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) throws NotFoundException {
+        Supplier supplier = supplierService.getById(supplierId);
+        throwNotFoundException(supplier, "Could not find any supplier with ID " + supplierId, "/supplier-page");
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=statement.pdf")
+                .contentType(MediaType.APPLICATION_PDF)
+                .body(outputStream -> {
+                    try {
+                        supplierStatementService.writeStatement(supplier, from, to, outputStream);
+                    } catch (JRException e) {
+                        throw new IOException(e);
+                    }
+                });
+    }
+
+    /**
+     * Submits a background job that renders the invoice of a purchase.
+     *
+     * This method returns immediately with the ID of the job instead of rendering the invoice on the request thread.
+     * If the render queue is full, 503 Service Unavailable is returned and the client should retry later.
+     *
+     * @param purchaseId the ID of the purchase whose invoice is rendered
+     * @return a {@link ResponseEntity} with status 202 Accepted containing the submitted {@link RenderJobDto}
+     */
+    @PostMapping("/jobs")
+    public ResponseEntity<RenderJobDto> submitRenderJob(@RequestParam("purchaseId") Integer purchaseId) {
+        try {
+            RenderJobDto job = invoiceRenderJobService.submit(purchaseId);
+            return ResponseEntity.accepted().location(URI.create("/invoices/jobs/" + job.getJobId())).body(job);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").build();
+        }
+    }
+
+    /**
+     * Retrieves the state of a render job, optionally waiting until it has finished.
+     *
+     * If {@code wait} is greater than zero and the job is still queued or running, the response is held back until
+     * the job finishes or the wait time runs out, without blocking a request thread.
+     *
+     * @param jobId the ID of the job
+     * @param wait the maximum number of seconds to wait for the job to finish
+     * @return a {@link DeferredResult} with the {@link RenderJobDto}, or 404 Not Found if no such job exists
+     */
+    @GetMapping("/jobs/{jobId}")
+    public DeferredResult<ResponseEntity<RenderJobDto>> getRenderJob(@PathVariable("jobId") String jobId,
+                                                                     @RequestParam(value = "wait", defaultValue = "0") long wait) {
+        RenderJobDto job = invoiceRenderJobService.getJob(jobId);
+        DeferredResult<ResponseEntity<RenderJobDto>> result = new DeferredResult<>(TimeUnit.SECONDS.toMillis(Math.min(wait, 60)),
+                () -> ResponseEntity.ok(invoiceRenderJobService.getJob(jobId)));
+        if (job == null) {
+            result.setResult(ResponseEntity.notFound().build());
+        } else if (wait <= 0) {
+            result.setResult(ResponseEntity.ok(job));
+        } else {
+            CompletableFuture<RenderJobDto> finished = invoiceRenderJobService.whenFinished(jobId);
+            if (finished == null) {
+                result.setResult(ResponseEntity.notFound().build());
+            } else {
+                finished.thenAccept(finishedJob -> result.setResult(ResponseEntity.ok(finishedJob)));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Downloads the PDF rendered by a finished job.
+     *
+     * The PDF is sent straight from the disk cache, with support for single byte ranges.
+     *
+     * @param jobId the ID of the job
+     * @param request the current request
+     * @param response the response the PDF is written to; 404 Not Found if the job does not exist or has not
+     *                 finished successfully
+     */
+    @GetMapping("/jobs/{jobId}/pdf")
+    public void downloadRenderJob(@PathVariable("jobId") String jobId,
+                                  HttpServletRequest request, HttpServletResponse response) throws JRException, IOException {
+        if (invoiceRenderJobService.getPdfFile(jobId) == null) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        fileResponseService.send(() -> invoiceRenderJobService.getPdfFile(jobId), MediaType.APPLICATION_PDF, "inline; filename=invoice.pdf",
+                invoiceRenderJobService.getETag(jobId), request, response);
+    }
+
+    /**
+     * Checks if one of the ETags sent by the client in the If-None-Match header matches the current ETag.
+     *
+     * The wildcard {@code *} matches any current representation, so it must only be checked once the invoice is
+     * known to exist.
+     *
+     * @param ifNoneMatch the value of the If-None-Match header, may be {@code null}
+     * @param eTag the current ETag of the invoice
+     * @return {@code true} if the client already has the current version of the invoice, {@code false} otherwise
+     */
+    private boolean isNotModified(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String clientETag : ifNoneMatch.split(",")) {
+            String value = clientETag.trim();
+            if (value.equals("*") || value.equals(eTag) || value.equals("W/" + eTag)) {
+                return true;
+            }
+        }
+        return false;
     }
 }
@@ -1,22 +1,31 @@
 package com.viser.StockTrade.controller;
 
 import com.viser.StockTrade.dto.ProductDto;
+import com.viser.StockTrade.dto.StockLevelDto;
+import com.viser.StockTrade.dto.StockMovementDto;
 import com.viser.StockTrade.exceptions.NameExistException;
 import com.viser.StockTrade.exceptions.NotFoundException;
 import com.viser.StockTrade.exceptions.ValidationException;
 import com.viser.StockTrade.service.ProductService;
+import com.viser.StockTrade.service.StockLedgerService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 @Controller
 @RequestMapping("/api/product")
 @RequiredArgsConstructor
 public class ProductController {
     private final ProductService productService;
+    private final StockLedgerService stockLedgerService;
 
     /**
      * Handles the request to add a new product.
@@ -77,4 +86,42 @@ public class ProductController {
         ra.addFlashAttribute("success", "Product update successfully!");
         return "redirect:/product-page";
     }
+
+    /**
+     * Retrieves the stock quantity of a product at a given time.
+     *
+     * The quantity is calculated from the stock ledger, starting at the latest stock snapshot before the given time,
+     * so the stock on any past date can be answered without replaying every purchase.
+     *
+     * @param id the ID of the product
+     * @param at the time of the stock quantity; the current time if not given
+     * @return a {@link ResponseEntity} containing the {@link StockLevelDto}
+     */
+    @GetMapping("/{id}/stock")
+    public ResponseEntity<StockLevelDto> getStock(@PathVariable("id") Integer id,
+                                                  @RequestParam(value = "at", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        return ResponseEntity.ok(stockLedgerService.getStockAt(id, at != null ? at : LocalDateTime.now()));
+    }
+
+    /**
+     * Retrieves the stock movements of a product in a period, oldest first.
+     *
+     * Every purchase and every manual change of the stock quantity is recorded as a movement. Without a period, the
+     * movements of the last 30 days are returned.
+     *
+     * @param id the ID of the product
+     * @param from the start of the period, inclusive
+     * @param to the end of the period, exclusive
+     * @param size the maximum number of movements, at most 1000
+     * @return a {@link ResponseEntity} containing the list of {@link StockMovementDto} objects
+     */
+    @GetMapping("/{id}/movements")
+    public ResponseEntity<List<StockMovementDto>> getMovements(@PathVariable("id") Integer id,
+                                                               @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                               @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                               @RequestParam(value = "size", defaultValue = "200") int size) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minusDays(30);
+        return ResponseEntity.ok(stockLedgerService.getMovements(id, start, end, Math.max(1, Math.min(size, 1000))));
+    }
 }
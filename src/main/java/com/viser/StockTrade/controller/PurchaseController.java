@@ -1,22 +1,34 @@
 package com.viser.StockTrade.controller;
 
 import com.viser.StockTrade.dto.PurchaseDto;
+import com.viser.StockTrade.dto.PurchaseImportReportDto;
+import com.viser.StockTrade.dto.PurchasePageDto;
 import com.viser.StockTrade.exceptions.ValidationException;
+import com.viser.StockTrade.service.PurchaseImportService;
 import com.viser.StockTrade.service.PurchaseService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+
 @Controller
 @RequestMapping("/api/purchase")
 @RequiredArgsConstructor
 public class PurchaseController {
     private final PurchaseService purchaseService;
+    private final PurchaseImportService purchaseImportService;
 
     /**
      * Handles the request to add a new purchase.
@@ -26,19 +38,107 @@ public class PurchaseController {
      * and the user is redirected to the purchases page. If there are validation errors, they are captured in the
      * {@link BindingResult} object, and a {@link ValidationException} is thrown if necessary.
      *
+     * The request can carry an idempotency key, either in the {@code Idempotency-Key} header or in the hidden
+     * {@code idempotencyKey} field of the add purchase form. A retried request with the same key gets the same
+     * result as the original request without saving the purchase again, marked with the {@code Idempotent-Replayed}
+     * header, so clients can safely retry after a timeout.
+     *
      * @param purchaseDto the {@link PurchaseDto} object containing the details of the purchase to be added
      * @param result the {@link BindingResult} object that holds validation errors
+     * @param idempotencyKey the idempotency key from the {@code Idempotency-Key} header, if any; takes precedence
+     *                       over the key of the form
      * @param ra the {@link RedirectAttributes} object used to pass flash attributes to the redirected page
+     * @param response the current response
      * @return a redirect URL to the purchases page upon successful addition of the purchase
      */
-    @Transactional
     @PostMapping("/add")
-    public String add(@Valid @ModelAttribute PurchaseDto purchaseDto, BindingResult result, RedirectAttributes ra) throws ValidationException {
-        purchaseService.add(purchaseDto, result);
+    public String add(@Valid @ModelAttribute PurchaseDto purchaseDto, BindingResult result,
+                      @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+                      RedirectAttributes ra, HttpServletResponse response) throws ValidationException {
+        String key = idempotencyKey != null ? idempotencyKey : purchaseDto.getIdempotencyKey();
+        if (purchaseService.add(purchaseDto, result, key)) {
+            response.setHeader("Idempotent-Replayed", "true");
+        }
         ra.addFlashAttribute("success", "Purchase saved successfully.");
         return "redirect:/purchases-page";
     }
 
+    /**
+     * Imports purchases in bulk from a CSV or NDJSON file sent as the request body.
+     *
+     * This method streams the request body into the {@link PurchaseImportService}, which validates the purchases
+     * with the same rules as the add form and commits them in chunks. Rows that cannot be imported do not abort the
+     * import; they are counted in the returned report, and the first of them are listed together with the reason.
+     *
+     * @param contentType the content type of the request, {@code text/csv} or {@code application/x-ndjson}
+     * @param inputStream the body of the request
+     * @return a {@link ResponseEntity} containing the {@link PurchaseImportReportDto}, or 415 Unsupported Media Type
+     *         for other content types
+     * @throws IOException if the request body cannot be read
+     */
+    @PostMapping("/import")
+    public ResponseEntity<PurchaseImportReportDto> importPurchases(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                                                   InputStream inputStream) throws IOException {
+        if (!purchaseImportService.isSupported(contentType)) {
+            return ResponseEntity.status(HttpStatus.UNSUPPORTED_MEDIA_TYPE).build();
+        }
+        return ResponseEntity.ok(purchaseImportService.importPurchases(inputStream, contentType));
+    }
+
+    /**
+     * Retrieves one page of purchases for the purchase and invoice pages.
+     *
+     * This method returns the purchases ordered by date, newest first unless {@code sort=asc} is given, filtered by
+     * the optional date range and supplier. The response contains a cursor which is passed back to load the next
+     * page, so the list is loaded incrementally instead of all at once.
+     *
+     * @param from the earliest purchase date, inclusive
+     * @param to the latest purchase date, inclusive
+     * @param supplier the name of the supplier
+     * @param sort {@code asc} or {@code desc}
+     * @param cursor the cursor returned with the previous page
+     * @param size the number of purchases per page, at most 200
+     * @return a {@link ResponseEntity} containing the {@link PurchasePageDto}, or 400 Bad Request if the cursor is
+     *         malformed
+     */
+    @GetMapping
+    public ResponseEntity<PurchasePageDto> getPurchases(@RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                        @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                        @RequestParam(value = "supplier", required = false) String supplier,
+                                                        @RequestParam(value = "sort", defaultValue = "desc") String sort,
+                                                        @RequestParam(value = "cursor", required = false) String cursor,
+                                                        @RequestParam(value = "size", defaultValue = "50") int size) {
+        return getPage(from, to, supplier, null, sort, cursor, size);
+    }
+
+    /**
+     * Searches purchases by date range, supplier and product.
+     *
+     * This method returns the purchases ordered by date, newest first unless {@code sort=asc} is given, that match all
+     * given filters. Every filter is optional. Like {@link #getPurchases}, the results are paged with a cursor, and
+     * each filter combination is served by an index, so a search costs the same however much history there is.
+     *
+     * @param from the earliest purchase date, inclusive
+     * @param to the latest purchase date, inclusive
+     * @param supplier the name of the supplier
+     * @param product the name of a product the purchases must contain
+     * @param sort {@code asc} or {@code desc}
+     * @param cursor the cursor returned with the previous page
+     * @param size the number of purchases per page, at most 200
+     * @return a {@link ResponseEntity} containing the {@link PurchasePageDto}, or 400 Bad Request if the cursor is
+     *         malformed
+     */
+    @GetMapping("/search")
+    public ResponseEntity<PurchasePageDto> searchPurchases(@RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                           @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                           @RequestParam(value = "supplier", required = false) String supplier,
+                                                           @RequestParam(value = "product", required = false) String product,
+                                                           @RequestParam(value = "sort", defaultValue = "desc") String sort,
+                                                           @RequestParam(value = "cursor", required = false) String cursor,
+                                                           @RequestParam(value = "size", defaultValue = "50") int size) {
+        return getPage(from, to, supplier, product, sort, cursor, size);
+    }
+
     /**
      * Retrieves the details of a specific purchase by its ID.
      *
@@ -55,4 +155,18 @@ public class PurchaseController {
         return ResponseEntity.ok(purchaseDto);
     }
 
+    private ResponseEntity<PurchasePageDto> getPage(LocalDate from, LocalDate to, String supplier, String product,
+                                                    String sort, String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, 200));
+        try {
+            return ResponseEntity.ok(purchaseService.getPage(from, to, emptyToNull(supplier), emptyToNull(product),
+                    "asc".equalsIgnoreCase(sort), cursor, pageSize));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    private String emptyToNull(String value) {
+        return value != null && !value.isBlank() ? value : null;
+    }
 }
@@ -10,6 +10,7 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 
 import java.security.Principal;
+import java.util.UUID;
 
 @Controller
 @RequiredArgsConstructor
@@ -18,15 +19,13 @@ public class ViewController {
     private final CategoryService categoryService;
     private final SupplierService supplierService;
     private final ProductService productService;
-    private final PurchaseService purchaseService;
 
     /**
      * Displays the index page with relevant data.
      *
-     * This method handles the request to display the index page. It populates the model with data necessary for the
-     * index page, including user information, category count, product count, and supplier count. The current
-     * authenticated user's data is also fetched and added to the model. The method then returns the view name for
-     * the index page.
+     * This method handles the request to display the index page. It populates the model with the data of the
+     * current authenticated user. The category, product and supplier counts are loaded by the page together with the
+     * chart data from the cached dashboard endpoint. The method then returns the view name for the index page.
      *
      * @param model the {@link Model} object used to add attributes for the view
      * @param principal the {@link Principal} object representing the currently authenticated user
@@ -35,9 +34,6 @@ public class ViewController {
     @GetMapping("/index")
     public String showIndexPage(Model model, Principal principal) {
         userService.getAllUsersDataInModel(model, principal.getName());
-        model.addAttribute("categoryCount", categoryService.countAll());
-        model.addAttribute("productCount", productService.countAll());
-        model.addAttribute("supplerCount", supplierService.countAll());
         return "index";
     }
 
@@ -257,7 +253,7 @@ public class ViewController {
         userService.getAllUsersDataInModel(model, principal.getName());
         model.addAttribute("categories", categoryService.getAll());
         model.addAttribute("suppliers", supplierService.getAll());
-        model.addAttribute("product", productService.getById(id));
+        model.addAttribute("product", productService.getByIdForEdit(id));
         return "edit-product-page";
     }
 
@@ -321,9 +317,9 @@ public class ViewController {
      * Displays the purchases page.
      *
      * This method handles the request to show the purchases page. It populates the model with user-related data,
-     * including information about the currently authenticated user. Additionally, it retrieves and adds a list of
-     * all purchases to the model, which is needed for displaying on the page. The method then returns the view name
-     * for the purchases page.
+     * including information about the currently authenticated user. Additionally, it adds the list of all suppliers
+     * to the model for the supplier filter; the purchases themselves are loaded page by page by the page from
+     * {@code /api/purchase}. The method then returns the view name for the purchases page.
      *
      * @param model the {@link Model} object used to add attributes for the view
      * @param principal the {@link Principal} object representing the currently authenticated user
@@ -332,7 +328,7 @@ public class ViewController {
     @GetMapping("/purchases-page")
     public String showPurchasesPage(Model model, Principal principal) {
         userService.getAllUsersDataInModel(model, principal.getName());
-        model.addAttribute("purchases", purchaseService.getAll());
+        model.addAttribute("suppliers", supplierService.getAll());
         return "purchases-page";
     }
 
@@ -342,7 +338,8 @@ public class ViewController {
      * This method handles the request to show the page for adding a new purchase. It populates the model with user-related
      * data, including information about the currently authenticated user. Additionally, it retrieves and adds a list of
      * all suppliers and a JSON representation of all products to the model. These attributes are needed for creating a new
-     * purchase. The method then returns the view name for the add purchase page.
+     * purchase. A fresh idempotency key is added for the hidden field of the form, so a resubmitted form does not save the
+     * purchase twice. The method then returns the view name for the add purchase page.
      *
      * @param model the {@link Model} object used to add attributes for the view
      * @param principal the {@link Principal} object representing the currently authenticated user
@@ -353,6 +350,7 @@ public class ViewController {
         userService.getAllUsersDataInModel(model, principal.getName());
         model.addAttribute("suppliers", supplierService.getAll());
         model.addAttribute("products", productService.getProductListInJson());
+        model.addAttribute("idempotencyKey", UUID.randomUUID().toString());
         return "add-purchase-page";
     }
 
@@ -360,9 +358,9 @@ public class ViewController {
      * Displays the invoice page.
      *
      * This method handles the request to show the invoice page. It populates the model with user-related data, including
-     * information about the currently authenticated user. Additionally, it retrieves and adds a list of all purchases to
-     * the model, which is needed for displaying invoices on the page. The method then returns the view name for the
-     * invoice page.
+     * information about the currently authenticated user. Additionally, it adds the list of all suppliers to the model
+     * for the supplier filter; the purchases are loaded page by page by the page from {@code /api/purchase}. The method
+     * then returns the view name for the invoice page.
      *
      * @param model the {@link Model} object used to add attributes for the view
      * @param principal the {@link Principal} object representing the currently authenticated user
@@ -371,7 +369,7 @@ public class ViewController {
     @GetMapping("/invoice-page")
     public String showInvoicePage(Model model, Principal principal) {
         userService.getAllUsersDataInModel(model, principal.getName());
-        model.addAttribute("purchases", purchaseService.getAll());
+        model.addAttribute("suppliers", supplierService.getAll());
         return "invoice-page";
     }
 }
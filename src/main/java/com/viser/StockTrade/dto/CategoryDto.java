@@ -11,4 +11,5 @@ public class CategoryDto {
     private String name;
     @BasicValidation(minLength = 10, message = "Description must be at least {minLength} characters long and cannot be just spaces.")
     private String description;
+    private Long version;
 }
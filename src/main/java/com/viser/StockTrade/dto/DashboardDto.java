@@ -0,0 +1,7 @@
+package com.viser.StockTrade.dto;
+
+import java.util.Map;
+
+public record DashboardDto(long categoryCount, long productCount, long supplierCount, Map<String, Long> categoryData,
+                           Map<String, Long> supplierData, Map<String, Long> productData) {
+}
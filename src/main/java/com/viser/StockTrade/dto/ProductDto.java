@@ -11,4 +11,5 @@ public class ProductDto {
     private int stockQty;
     private int categoryId;
     private int supplierId;
+    private Long version;
 }
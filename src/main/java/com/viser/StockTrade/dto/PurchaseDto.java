@@ -20,4 +20,5 @@ public class PurchaseDto {
     @Valid
     private List<PurchasesItemDto> purchaseItems;
     private double totalAmount;
+    private String idempotencyKey;
 }
@@ -0,0 +1,11 @@
+package com.viser.StockTrade.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class PurchaseImportErrorDto {
+    private long row;
+    private String message;
+}
@@ -0,0 +1,16 @@
+package com.viser.StockTrade.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class PurchaseImportReportDto {
+    private long rowsRead;
+    private long purchasesImported;
+    private long purchasesFailed;
+    private long durationMillis;
+    private double rowsPerSecond;
+    private List<PurchaseImportErrorDto> errors = new ArrayList<>();
+}
@@ -0,0 +1,13 @@
+package com.viser.StockTrade.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class PurchasePageDto {
+    private List<PurchaseSummaryDto> purchases;
+    private String nextCursor;
+}
@@ -0,0 +1,6 @@
+package com.viser.StockTrade.dto;
+
+import java.time.LocalDate;
+
+public record PurchaseSummaryDto(int id, LocalDate date, String supplier, double totalAmount) {
+}
@@ -0,0 +1,15 @@
+package com.viser.StockTrade.dto;
+
+import com.viser.StockTrade.enums.RenderJobStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class RenderJobDto {
+    private String jobId;
+    private int purchaseId;
+    private RenderJobStatus status;
+    private String error;
+    private String downloadUrl;
+}
@@ -0,0 +1,20 @@
+package com.viser.StockTrade.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+@Data
+@AllArgsConstructor
+public class StatementLineDto {
+    private int purchaseId;
+    private LocalDate date;
+    private String product;
+    private int quantity;
+    private double unitPrice;
+
+    public double getLineTotal() {
+        return quantity * unitPrice;
+    }
+}
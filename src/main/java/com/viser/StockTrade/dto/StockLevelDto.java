@@ -0,0 +1,6 @@
+package com.viser.StockTrade.dto;
+
+import java.time.LocalDateTime;
+
+public record StockLevelDto(int productId, LocalDateTime at, int stockQuantity) {
+}
@@ -0,0 +1,8 @@
+package com.viser.StockTrade.dto;
+
+import com.viser.StockTrade.enums.StockMovementType;
+
+import java.time.LocalDateTime;
+
+public record StockMovementDto(long id, LocalDateTime createdAt, StockMovementType type, int quantity, Integer purchaseId) {
+}
@@ -14,4 +14,5 @@ public class SupplierDto {
     private String email;
     @ValidValue
     private String phone;
+    private Long version;
 }
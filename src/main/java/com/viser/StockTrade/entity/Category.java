@@ -12,6 +12,8 @@ public class Category {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private int id;
+    @Version
+    private long version;
     private String name;
     private String description;
     @Column(name = "category_icon")
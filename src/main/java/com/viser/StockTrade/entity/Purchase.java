@@ -17,7 +17,9 @@ import java.util.List;
 public class Purchase {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "purchase_id")
+    @TableGenerator(name = "purchase_id", table = "id_generator", pkColumnName = "name", valueColumnName = "next_val",
+            pkColumnValue = "purchase", allocationSize = 50)
     private int id;
 
     @Column(nullable = false)
@@ -26,6 +28,9 @@ public class Purchase {
     @Column(name = "supplier_name", nullable = false)
     private String supplierName;
 
+    @Column(name = "supplier_id")
+    private Integer supplierId;
+
     @Column(nullable = false)
     private double totalAmount;
 
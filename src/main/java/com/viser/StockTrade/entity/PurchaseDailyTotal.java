@@ -0,0 +1,19 @@
+package com.viser.StockTrade.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Entity
+@Table(name = "purchase_daily_total", indexes = @Index(name = "idx_purchase_daily_total_dimension_date", columnList = "dimension, purchase_date, quantity"))
+@Getter
+@Setter
+@NoArgsConstructor
+public class PurchaseDailyTotal {
+    @EmbeddedId
+    private PurchaseDailyTotalId id;
+
+    @Column(nullable = false)
+    private long quantity;
+}
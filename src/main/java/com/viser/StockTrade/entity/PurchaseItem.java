@@ -5,6 +5,8 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
+import java.time.LocalDate;
+
 @Entity
 @Table(name = "purchase_item")
 @Getter
@@ -13,19 +15,33 @@ import lombok.Setter;
 public class PurchaseItem {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "purchase_item_id")
+    @TableGenerator(name = "purchase_item_id", table = "id_generator", pkColumnName = "name", valueColumnName = "next_val",
+            pkColumnValue = "purchase_item", allocationSize = 50)
     private int id;
 
-    @ManyToOne(fetch = FetchType.EAGER)
-    @JoinColumn(name = "purchase_id", nullable = false)
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "purchase_id", nullable = false, foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private Purchase purchase;
 
+    @Column(name = "purchase_date", nullable = false)
+    private LocalDate purchaseDate;
+
     @Column(name = "product_name", nullable = false)
     private String productName;
 
     @Column(name = "product_category", nullable = false)
     private String productCategory;
 
+    @Column(name = "product_id")
+    private Integer productId;
+
+    @Column(name = "category_id")
+    private Integer categoryId;
+
+    @Column(name = "supplier_id")
+    private Integer supplierId;
+
     @Column(nullable = false)
     private int quantity;
 
@@ -0,0 +1,19 @@
+package com.viser.StockTrade.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Entity
+@Table(name = "purchase_total")
+@Getter
+@Setter
+@NoArgsConstructor
+public class PurchaseTotal {
+    @EmbeddedId
+    private PurchaseTotalId id;
+
+    @Column(nullable = false)
+    private long quantity;
+}
@@ -0,0 +1,28 @@
+package com.viser.StockTrade.entity;
+
+import com.viser.StockTrade.enums.PurchaseTotalDimension;
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PurchaseTotalId implements Serializable {
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private PurchaseTotalDimension dimension;
+
+    @Column(name = "key_id", nullable = false)
+    private int keyId;
+
+    @Column(nullable = false)
+    private String name;
+}
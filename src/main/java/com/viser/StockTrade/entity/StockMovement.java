@@ -0,0 +1,45 @@
+package com.viser.StockTrade.entity;
+
+import com.viser.StockTrade.enums.StockMovementType;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Immutable
+@Table(name = "stock_movement", indexes = @Index(name = "idx_stock_movement_product_created_at", columnList = "product_id, created_at"))
+@Getter
+@Setter
+@NoArgsConstructor
+public class StockMovement {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private long id;
+
+    @Column(name = "product_id", nullable = false)
+    private int productId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private StockMovementType type;
+
+    @Column(nullable = false)
+    private int quantity;
+
+    @Column(name = "purchase_id")
+    private Integer purchaseId;
+
+    @Column(name = "created_at", nullable = false, insertable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    public StockMovement(int productId, StockMovementType type, int quantity, Integer purchaseId) {
+        this.productId = productId;
+        this.type = type;
+        this.quantity = quantity;
+        this.purchaseId = purchaseId;
+    }
+}
@@ -12,6 +12,8 @@ public class Supplier {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private int id;
+    @Version
+    private long version;
     private String name;
     private String address;
     private String email;
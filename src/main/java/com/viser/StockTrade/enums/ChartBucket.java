@@ -0,0 +1,5 @@
+package com.viser.StockTrade.enums;
+
+public enum ChartBucket {
+    DAY, WEEK, MONTH
+}
@@ -0,0 +1,19 @@
+package com.viser.StockTrade.enums;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * The dimensions purchased quantities are totalled by, with the {@code purchase_item} columns of their key and of
+ * the name the items were saved with.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum PurchaseTotalDimension {
+    CATEGORY("category_id", "product_category"),
+    PRODUCT("product_id", "product_name"),
+    SUPPLIER("supplier_id", "supplier_name");
+
+    private final String keyColumn;
+    private final String nameColumn;
+}
@@ -0,0 +1,5 @@
+package com.viser.StockTrade.enums;
+
+public enum RenderJobStatus {
+    QUEUED, RUNNING, DONE, FAILED
+}
@@ -0,0 +1,5 @@
+package com.viser.StockTrade.enums;
+
+public enum StockMovementType {
+    OPENING, PURCHASE, ADJUSTMENT
+}
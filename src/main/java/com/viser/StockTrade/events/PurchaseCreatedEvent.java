@@ -0,0 +1,9 @@
+package com.viser.StockTrade.events;
+
+/**
+ * Published when a new purchase has been saved.
+ *
+ * @param purchaseId the ID of the saved purchase
+ */
+public record PurchaseCreatedEvent(int purchaseId) {
+}
@@ -3,6 +3,7 @@ package com.viser.StockTrade.exceptions;
 import org.springframework.validation.BindingResult;
 
 public class ExceptionHelper {
+    public static final String VERSION_CONFLICT_MESSAGE = "This record was changed by someone else in the meantime. Please reload the page and try again.";
 
     /**
      * Throws a {@link ValidationException} if there are validation errors.
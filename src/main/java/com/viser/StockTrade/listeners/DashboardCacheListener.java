@@ -0,0 +1,27 @@
+package com.viser.StockTrade.listeners;
+
+import com.viser.StockTrade.events.PurchaseCreatedEvent;
+import com.viser.StockTrade.service.DashboardService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+@Component
+@RequiredArgsConstructor
+public class DashboardCacheListener {
+    private final DashboardService dashboardService;
+
+    /**
+     * Invalidates the cached dashboard once a new purchase has been committed.
+     *
+     * The listener runs only after the commit, so the rebuilt dashboard already contains the purchase, and a rolled
+     * back purchase never invalidates the cache.
+     *
+     * @param event the {@link PurchaseCreatedEvent} of the committed purchase
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onPurchaseCreated(PurchaseCreatedEvent event) {
+        dashboardService.invalidate();
+    }
+}
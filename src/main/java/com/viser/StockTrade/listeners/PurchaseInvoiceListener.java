@@ -0,0 +1,28 @@
+package com.viser.StockTrade.listeners;
+
+import com.viser.StockTrade.events.PurchaseCreatedEvent;
+import com.viser.StockTrade.service.InvoiceRenderJobService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+@Component
+@RequiredArgsConstructor
+public class PurchaseInvoiceListener {
+    private final InvoiceRenderJobService invoiceRenderJobService;
+
+    /**
+     * Queues the invoice of a new purchase for background rendering once the purchase has been committed.
+     *
+     * Almost every new purchase is followed by a view of its invoice, so rendering it ahead of time lets the first
+     * view be served from the invoice cache. The listener runs only after the commit, so a rolled back purchase is
+     * never rendered.
+     *
+     * @param event the {@link PurchaseCreatedEvent} of the committed purchase
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onPurchaseCreated(PurchaseCreatedEvent event) {
+        invoiceRenderJobService.prerender(event.purchaseId());
+    }
+}
@@ -0,0 +1,36 @@
+package com.viser.StockTrade.repository;
+
+import com.viser.StockTrade.entity.IdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, String> {
+    @Query("SELECT k FROM IdempotencyKey k WHERE k.idempotencyKey = :key AND k.expiresAt > :now")
+    IdempotencyKey findActive(@Param("key") String key, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query(value = "INSERT INTO idempotency_key (idempotency_key, request_hash, created_at, expires_at) " +
+            "VALUES (:key, :requestHash, :createdAt, :expiresAt)", nativeQuery = true)
+    void insert(@Param("key") String key, @Param("requestHash") String requestHash,
+                @Param("createdAt") LocalDateTime createdAt, @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Query("UPDATE IdempotencyKey k SET k.purchaseId = :purchaseId WHERE k.idempotencyKey = :key")
+    void updatePurchaseId(@Param("key") String key, @Param("purchaseId") int purchaseId);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyKey k WHERE k.idempotencyKey = :key AND k.expiresAt <= :now")
+    void deleteExpired(@Param("key") String key, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyKey k WHERE k.expiresAt <= :now")
+    int deleteAllExpired(@Param("now") LocalDateTime now);
+}
@@ -2,14 +2,22 @@ package com.viser.StockTrade.repository;
 
 import com.viser.StockTrade.entity.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Integer> {
+public interface ProductRepository extends JpaRepository<Product, Integer>, ProductRepositoryCustom {
     Product findById(int id);
 
     Product findByName(String name);
 
+    @Query("SELECT p FROM Product p JOIN FETCH p.category JOIN FETCH p.supplier WHERE p.name IN :names")
+    List<Product> findByNameIn(@Param("names") Collection<String> names);
+
     boolean existsByName(String name);
 
     boolean existsBySupplierId(int id);
@@ -0,0 +1,9 @@
+package com.viser.StockTrade.repository;
+
+import java.util.Map;
+
+public interface ProductRepositoryCustom {
+    void incrementStockQuantities(Map<Integer, Integer> quantities);
+
+    int reconcileStockQuantities();
+}
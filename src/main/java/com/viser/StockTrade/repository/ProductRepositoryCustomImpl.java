@@ -0,0 +1,75 @@
+package com.viser.StockTrade.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@RequiredArgsConstructor
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+    private static final String INCREMENT_STOCK_QUANTITY = "UPDATE product SET stock_quantity = stock_quantity + ?, version = version + 1 WHERE id = ?";
+    private static final String SELECT_LEDGER_STOCK_QUANTITIES =
+            "SELECT p.id, p.stock_quantity, COALESCE(s.stock_quantity, 0) + " +
+            "(SELECT COALESCE(SUM(m.quantity), 0) FROM stock_movement m " +
+            "WHERE m.product_id = p.id AND m.created_at > COALESCE(s.snapshot_at, '1000-01-01')) " +
+            "FROM product p " +
+            "LEFT JOIN stock_snapshot s ON s.product_id = p.id " +
+            "AND s.snapshot_at = (SELECT MAX(s2.snapshot_at) FROM stock_snapshot s2 WHERE s2.product_id = p.id)";
+    private static final String SET_STOCK_QUANTITY =
+            "UPDATE product SET stock_quantity = ?, version = version + 1 WHERE id = ? AND stock_quantity = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Atomically adds the given quantities to the stock quantity of the products, in one JDBC batch.
+     *
+     * The increment is calculated by the database, so concurrent purchases of the same product cannot overwrite
+     * each other's changes, and no product entity is read or written. The version of every updated product is
+     * incremented, so a concurrent edit based on the old stock quantity fails instead of overwriting the increment.
+     * The rows are updated in ascending ID order, so concurrent batches lock them in the same order and cannot
+     * deadlock.
+     *
+     * @param quantities the quantities to be added, keyed by product ID
+     */
+    @Override
+    public void incrementStockQuantities(Map<Integer, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<Integer, Integer>> increments = new ArrayList<>(new TreeMap<>(quantities).entrySet());
+        jdbcTemplate.batchUpdate(INCREMENT_STOCK_QUANTITY, increments, increments.size(), (ps, increment) -> {
+            ps.setInt(1, increment.getValue());
+            ps.setInt(2, increment.getKey());
+        });
+    }
+
+    /**
+     * Sets the stock quantity of every product whose stock quantity differs from its stock ledger.
+     *
+     * The ledger quantity of a product is its latest snapshot plus the movements since the snapshot, so this never
+     * replays the whole ledger. Only products whose quantity still has the value that was read are updated, and
+     * their version is incremented.
+     *
+     * @return the number of corrected products
+     */
+    @Override
+    public int reconcileStockQuantities() {
+        List<int[]> corrections = new ArrayList<>();
+        jdbcTemplate.query(SELECT_LEDGER_STOCK_QUANTITIES, rs -> {
+            if (rs.getInt(2) != rs.getInt(3)) {
+                corrections.add(new int[]{rs.getInt(1), rs.getInt(2), rs.getInt(3)});
+            }
+        });
+        if (!corrections.isEmpty()) {
+            jdbcTemplate.batchUpdate(SET_STOCK_QUANTITY, corrections, corrections.size(), (ps, correction) -> {
+                ps.setInt(1, correction[2]);
+                ps.setInt(2, correction[0]);
+                ps.setInt(3, correction[1]);
+            });
+        }
+        return corrections.size();
+    }
+}
@@ -0,0 +1,23 @@
+package com.viser.StockTrade.repository;
+
+import com.viser.StockTrade.entity.PurchaseDailyTotal;
+import com.viser.StockTrade.entity.PurchaseDailyTotalId;
+import com.viser.StockTrade.enums.PurchaseTotalDimension;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface PurchaseDailyTotalRepository extends JpaRepository<PurchaseDailyTotal, PurchaseDailyTotalId>, PurchaseDailyTotalRepositoryCustom {
+
+    @Query("SELECT t.id.purchaseDate, SUM(t.quantity) FROM PurchaseDailyTotal t " +
+            "WHERE t.id.dimension = :dimension AND (:keyId IS NULL OR t.id.keyId = :keyId) " +
+            "AND t.id.purchaseDate BETWEEN :from AND :to " +
+            "GROUP BY t.id.purchaseDate ORDER BY t.id.purchaseDate")
+    List<Object[]> sumQuantityByDate(@Param("dimension") PurchaseTotalDimension dimension, @Param("keyId") Integer keyId,
+                                     @Param("from") LocalDate from, @Param("to") LocalDate to);
+}
@@ -0,0 +1,11 @@
+package com.viser.StockTrade.repository;
+
+import com.viser.StockTrade.entity.PurchaseDailyTotalId;
+
+import java.util.Map;
+
+public interface PurchaseDailyTotalRepositoryCustom {
+    void incrementAll(Map<PurchaseDailyTotalId, Long> quantities);
+
+    void rebuild();
+}
@@ -0,0 +1,48 @@
+package com.viser.StockTrade.repository;
+
+import com.viser.StockTrade.entity.PurchaseDailyTotalId;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@RequiredArgsConstructor
+public class PurchaseDailyTotalRepositoryCustomImpl implements PurchaseDailyTotalRepositoryCustom {
+    private static final String INCREMENT_TOTAL =
+            "INSERT INTO purchase_daily_total (dimension, key_id, purchase_date, quantity) VALUES (?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE quantity = quantity + VALUES(quantity)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Adds the given quantities to the daily purchase totals in one JDBC batch, creating missing totals.
+     *
+     * The totals are updated in the iteration order of the map.
+     *
+     * @param quantities the quantities to be added, keyed by the dimension, key and date of the total
+     */
+    @Override
+    public void incrementAll(Map<PurchaseDailyTotalId, Long> quantities) {
+        if (quantities.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<PurchaseDailyTotalId, Long>> increments = new ArrayList<>(quantities.entrySet());
+        jdbcTemplate.batchUpdate(INCREMENT_TOTAL, increments, increments.size(), (ps, increment) -> {
+            ps.setString(1, increment.getKey().getDimension().name());
+            ps.setInt(2, increment.getKey().getKeyId());
+            ps.setDate(3, Date.valueOf(increment.getKey().getPurchaseDate()));
+            ps.setLong(4, increment.getValue());
+        });
+    }
+
+    /**
+     * Replaces all daily purchase totals with totals computed from the live and archived purchase items.
+     */
+    @Override
+    public void rebuild() {
+        PurchaseTotalRebuilder.rebuild(jdbcTemplate, "purchase_daily_total", "purchase_date", dimension -> "purchase_date");
+    }
+}
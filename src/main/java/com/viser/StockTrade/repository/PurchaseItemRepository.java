@@ -1,21 +1,26 @@
 package com.viser.StockTrade.repository;
 
+import com.viser.StockTrade.dto.StatementLineDto;
 import com.viser.StockTrade.entity.PurchaseItem;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.util.List;
+import java.time.LocalDate;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
 public interface PurchaseItemRepository extends JpaRepository<PurchaseItem, Integer> {
 
-    @Query("SELECT p.productCategory, SUM(p.quantity) FROM PurchaseItem p GROUP BY p.productCategory")
-    List<Object[]> countPurchasesByCategory();
-
-    @Query("SELECT p.productName, SUM(p.quantity) FROM PurchaseItem p GROUP BY p.productName")
-    List<Object[]> sumQuantityByProduct();
-
-    @Query("SELECT p.purchase.supplierName, SUM(p.quantity) FROM PurchaseItem p GROUP BY p.purchase.supplierName")
-    List<Object[]> sumQuantotyBySupplier();
+    @Query("SELECT new com.viser.StockTrade.dto.StatementLineDto(i.purchase.id, i.purchaseDate, i.productName, i.quantity, i.price) " +
+            "FROM PurchaseItem i WHERE i.supplierId = :supplierId AND i.purchaseDate BETWEEN :from AND :to " +
+            "ORDER BY i.purchaseDate, i.purchase.id, i.id")
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    Stream<StatementLineDto> streamStatementLines(@Param("supplierId") int supplierId, @Param("from") LocalDate from, @Param("to") LocalDate to);
 }
@@ -1,10 +1,23 @@
 package com.viser.StockTrade.repository;
 
 import com.viser.StockTrade.entity.Purchase;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.List;
+
 @Repository
-public interface PurchaseRepository extends JpaRepository<Purchase, Integer> {
+public interface PurchaseRepository extends JpaRepository<Purchase, Integer>, PurchaseRepositoryCustom {
     Purchase findById(int id);
+
+    @EntityGraph(attributePaths = "purchaseItems")
+    Purchase findWithItemsById(int id);
+
+    @Query("SELECT p.id FROM Purchase p WHERE (:from IS NULL OR p.date >= :from) AND (:to IS NULL OR p.date <= :to) " +
+            "AND (:supplier IS NULL OR p.supplierName = :supplier) ORDER BY p.date, p.id")
+    List<Integer> findIdsByDateAndSupplier(@Param("from") LocalDate from, @Param("to") LocalDate to, @Param("supplier") String supplier);
 }
@@ -0,0 +1,22 @@
+package com.viser.StockTrade.repository;
+
+import com.viser.StockTrade.dto.PurchaseSummaryDto;
+import com.viser.StockTrade.entity.Purchase;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface PurchaseRepositoryCustom {
+    List<PurchaseSummaryDto> findPage(LocalDate from, LocalDate to, String supplier, String product, boolean ascending,
+                                      LocalDate afterDate, Integer afterId, int limit);
+
+    Purchase findArchivedWithItemsById(int id);
+
+    String findSupplierRevision(int id);
+
+    int archiveBefore(LocalDate cutoff, int limit);
+
+    List<Integer> findPartitionYears(String table);
+
+    void addYearPartition(String table, int year);
+}
@@ -0,0 +1,217 @@
+package com.viser.StockTrade.repository;
+
+import com.viser.StockTrade.dto.PurchaseSummaryDto;
+import com.viser.StockTrade.entity.Purchase;
+import com.viser.StockTrade.entity.PurchaseItem;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+@RequiredArgsConstructor
+public class PurchaseRepositoryCustomImpl implements PurchaseRepositoryCustom {
+    private static final Pattern YEAR_PARTITION = Pattern.compile("p_(\\d{4})");
+    private static final Set<String> PARTITIONED_TABLES = Set.of("purchase", "purchase_item");
+
+    private final EntityManager entityManager;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Retrieves one page of purchase summaries ordered by date and ID, continuing after the given position.
+     *
+     * Instead of skipping rows with an offset, the query continues right after the last purchase of the previous
+     * page, so every page costs the same no matter how far the client has scrolled. Only the summary columns are
+     * selected, so no entities are loaded. The {@code purchase_item} table is only read for the product filter, which
+     * is a semi-join on the {@code (product_name, purchase_id)} index. The date range is applied to both tables, so
+     * only the partitions of the range are read.
+     *
+     * @param from the earliest purchase date, inclusive, or {@code null}
+     * @param to the latest purchase date, inclusive, or {@code null}
+     * @param supplier the name of the supplier, or {@code null}
+     * @param product the name of a product the purchases must contain, or {@code null}
+     * @param ascending {@code true} to order from the oldest purchase, {@code false} to order from the newest
+     * @param afterDate the date of the last purchase of the previous page, or {@code null} for the first page
+     * @param afterId the ID of the last purchase of the previous page, or {@code null} for the first page
+     * @param limit the maximum number of purchases to return
+     * @return the purchase summaries of the page
+     */
+    @Override
+    public List<PurchaseSummaryDto> findPage(LocalDate from, LocalDate to, String supplier, String product, boolean ascending,
+                                             LocalDate afterDate, Integer afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<PurchaseSummaryDto> query = cb.createQuery(PurchaseSummaryDto.class);
+        Root<Purchase> purchase = query.from(Purchase.class);
+        Path<LocalDate> date = purchase.get("date");
+        Path<Integer> id = purchase.get("id");
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (from != null) {
+            predicates.add(cb.greaterThanOrEqualTo(date, from));
+        }
+        if (to != null) {
+            predicates.add(cb.lessThanOrEqualTo(date, to));
+        }
+        if (supplier != null) {
+            predicates.add(cb.equal(purchase.get("supplierName"), supplier));
+        }
+        if (product != null) {
+            Subquery<Integer> purchaseIds = query.subquery(Integer.class);
+            Root<PurchaseItem> purchaseItem = purchaseIds.from(PurchaseItem.class);
+            Path<LocalDate> purchaseDate = purchaseItem.get("purchaseDate");
+            List<Predicate> itemPredicates = new ArrayList<>();
+            itemPredicates.add(cb.equal(purchaseItem.get("productName"), product));
+            if (from != null) {
+                itemPredicates.add(cb.greaterThanOrEqualTo(purchaseDate, from));
+            }
+            if (to != null) {
+                itemPredicates.add(cb.lessThanOrEqualTo(purchaseDate, to));
+            }
+            purchaseIds.select(purchaseItem.get("purchase").get("id")).where(itemPredicates.toArray(new Predicate[0]));
+            predicates.add(id.in(purchaseIds));
+        }
+        if (afterDate != null && afterId != null) {
+            predicates.add(ascending
+                    ? cb.or(cb.greaterThan(date, afterDate), cb.and(cb.equal(date, afterDate), cb.greaterThan(id, afterId)))
+                    : cb.or(cb.lessThan(date, afterDate), cb.and(cb.equal(date, afterDate), cb.lessThan(id, afterId))));
+        }
+        query.select(cb.construct(PurchaseSummaryDto.class, id, date, purchase.get("supplierName"), purchase.get("totalAmount")))
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(ascending ? List.of(cb.asc(date), cb.asc(id)) : List.of(cb.desc(date), cb.desc(id)));
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    /**
+     * Retrieves an archived purchase together with its items from the archive tables.
+     *
+     * The returned entities are detached, so they are never written back to the live tables.
+     *
+     * @param id the ID of the purchase
+     * @return the archived purchase with its items, or {@code null} if no archived purchase with that ID exists
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Purchase findArchivedWithItemsById(int id) {
+        List<Purchase> purchases = entityManager.createNativeQuery("SELECT * FROM purchase_archive WHERE id = :id", Purchase.class)
+                .setParameter("id", id)
+                .getResultList();
+        if (purchases.isEmpty()) {
+            return null;
+        }
+        Purchase purchase = purchases.getFirst();
+        List<PurchaseItem> purchaseItems = entityManager.createNativeQuery(
+                        "SELECT * FROM purchase_item_archive WHERE purchase_id = :id ORDER BY id", PurchaseItem.class)
+                .setParameter("id", id)
+                .getResultList();
+        entityManager.detach(purchase);
+        purchaseItems.forEach(entityManager::detach);
+        purchase.setPurchaseItems(purchaseItems);
+        return purchase;
+    }
+
+    /**
+     * Retrieves the ID and version of the supplier printed on the invoice of a live or archived purchase.
+     *
+     * The supplier is resolved like the invoice resolves it: by its ID, or by its name for purchases without a
+     * resolved supplier ID. Every edit of the supplier increments its version, so the revision changes whenever the
+     * printed supplier details do.
+     *
+     * @param id the ID of the purchase
+     * @return the revision as {@code <supplier ID>-<version>}, {@code none} if the supplier no longer exists, or
+     *         {@code null} if no purchase with that ID exists
+     */
+    @Override
+    public String findSupplierRevision(int id) {
+        List<String> revisions = jdbcTemplate.queryForList("SELECT COALESCE(CONCAT(s.id, '-', s.version), " +
+                        "CONCAT(n.id, '-', n.version), 'none') " +
+                        "FROM (SELECT supplier_id, supplier_name FROM purchase WHERE id = :id " +
+                        "UNION ALL SELECT supplier_id, supplier_name FROM purchase_archive WHERE id = :id) p " +
+                        "LEFT JOIN supplier s ON s.id = p.supplier_id " +
+                        "LEFT JOIN supplier n ON p.supplier_id IS NULL AND n.name = p.supplier_name",
+                new MapSqlParameterSource("id", id), String.class);
+        return revisions.isEmpty() ? null : revisions.getFirst();
+    }
+
+    /**
+     * Moves the oldest purchases dated before the cutoff, together with their items, to the archive tables.
+     *
+     * Every statement has a predicate on the partitioning column, so only the partitions before the cutoff are
+     * read. The selected purchases are locked, so this method must be called in a transaction.
+     *
+     * @param cutoff the date before which purchases are archived
+     * @param limit the maximum number of purchases to move
+     * @return the number of purchases moved
+     */
+    @Override
+    public int archiveBefore(LocalDate cutoff, int limit) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource("cutoff", cutoff).addValue("limit", limit);
+        List<Integer> ids = jdbcTemplate.queryForList(
+                "SELECT id FROM purchase WHERE date < :cutoff ORDER BY date, id LIMIT :limit FOR UPDATE", parameters, Integer.class);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        parameters.addValue("ids", ids);
+        jdbcTemplate.update("INSERT INTO purchase_archive SELECT * FROM purchase WHERE date < :cutoff AND id IN (:ids)", parameters);
+        jdbcTemplate.update("INSERT INTO purchase_item_archive SELECT * FROM purchase_item " +
+                "WHERE purchase_date < :cutoff AND purchase_id IN (:ids)", parameters);
+        jdbcTemplate.update("DELETE FROM purchase_item WHERE purchase_date < :cutoff AND purchase_id IN (:ids)", parameters);
+        jdbcTemplate.update("DELETE FROM purchase WHERE date < :cutoff AND id IN (:ids)", parameters);
+        return ids.size();
+    }
+
+    /**
+     * Retrieves the years that have their own partition in a partitioned purchase table.
+     *
+     * @param table {@code purchase} or {@code purchase_item}
+     * @return the years of the yearly partitions, or an empty list if the table is not partitioned
+     */
+    @Override
+    public List<Integer> findPartitionYears(String table) {
+        List<String> partitions = jdbcTemplate.queryForList("SELECT PARTITION_NAME FROM information_schema.PARTITIONS " +
+                        "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = :table AND PARTITION_NAME IS NOT NULL",
+                new MapSqlParameterSource("table", checkPartitionedTable(table)), String.class);
+        List<Integer> years = new ArrayList<>();
+        for (String partition : partitions) {
+            Matcher matcher = YEAR_PARTITION.matcher(partition);
+            if (matcher.matches()) {
+                years.add(Integer.parseInt(matcher.group(1)));
+            }
+        }
+        return years;
+    }
+
+    /**
+     * Splits the partition of a year off the open-ended {@code p_max} partition of a partitioned purchase table.
+     *
+     * The split only moves rows if {@code p_max} already contains rows of that year, so it is cheap when done ahead
+     * of time.
+     *
+     * @param table {@code purchase} or {@code purchase_item}
+     * @param year the year of the new partition, which must be later than every existing yearly partition
+     */
+    @Override
+    public void addYearPartition(String table, int year) {
+        jdbcTemplate.getJdbcTemplate().execute("ALTER TABLE " + checkPartitionedTable(table) + " REORGANIZE PARTITION p_max INTO (" +
+                "PARTITION p_" + year + " VALUES LESS THAN ('" + (year + 1) + "-01-01'), " +
+                "PARTITION p_max VALUES LESS THAN (MAXVALUE))");
+    }
+
+    private String checkPartitionedTable(String table) {
+        if (!PARTITIONED_TABLES.contains(table)) {
+            throw new IllegalArgumentException("Table " + table + " is not a partitioned purchase table");
+        }
+        return table;
+    }
+}
@@ -0,0 +1,50 @@
+package com.viser.StockTrade.repository;
+
+import com.viser.StockTrade.enums.PurchaseTotalDimension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.function.Function;
+
+/**
+ * Rebuilds the all-time and daily purchase totals from the purchase items, so both tables are computed the same way.
+ */
+final class PurchaseTotalRebuilder {
+    /**
+     * The live and archived purchase items, with the supplier name of their purchase.
+     */
+    private static final String ITEMS =
+            "(SELECT i.category_id, i.product_id, i.supplier_id, i.product_category, i.product_name, p.supplier_name, " +
+            "i.purchase_date, i.quantity FROM purchase_item i " +
+            "JOIN purchase p ON p.id = i.purchase_id AND p.date = i.purchase_date " +
+            "UNION ALL SELECT i.category_id, i.product_id, i.supplier_id, i.product_category, i.product_name, " +
+            "p.supplier_name, i.purchase_date, i.quantity FROM purchase_item_archive i " +
+            "JOIN purchase_archive p ON p.id = i.purchase_id AND p.date = i.purchase_date) i";
+    private static final String INSERT_TOTALS =
+            "INSERT INTO %1$s (dimension, key_id, %2$s, quantity) " +
+            "SELECT '%3$s', COALESCE(i.%4$s, 0), i.%5$s, SUM(i.quantity) FROM " + ITEMS + " " +
+            "GROUP BY COALESCE(i.%4$s, 0), i.%5$s";
+
+    private PurchaseTotalRebuilder() {
+    }
+
+    /**
+     * Replaces all totals of a table with totals computed from the live and archived purchase items.
+     *
+     * The quantities are summed per dimension, key and one more column of the items. Items without a resolved key are
+     * counted under the key {@code 0}. Archived items are included, so moving items to the archive does not change
+     * the totals.
+     *
+     * @param jdbcTemplate the template to run the statements with
+     * @param table the table of the totals
+     * @param column the column of the table after {@code key_id}
+     * @param itemColumn the column of the items that is written to that column, per dimension
+     */
+    static void rebuild(JdbcTemplate jdbcTemplate, String table, String column,
+                        Function<PurchaseTotalDimension, String> itemColumn) {
+        jdbcTemplate.update("DELETE FROM " + table);
+        for (PurchaseTotalDimension dimension : PurchaseTotalDimension.values()) {
+            jdbcTemplate.update(String.format(INSERT_TOTALS, table, column, dimension.name(), dimension.getKeyColumn(),
+                    itemColumn.apply(dimension)));
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.viser.StockTrade.repository;
+
+import com.viser.StockTrade.entity.PurchaseTotal;
+import com.viser.StockTrade.entity.PurchaseTotalId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface PurchaseTotalRepository extends JpaRepository<PurchaseTotal, PurchaseTotalId>, PurchaseTotalRepositoryCustom {
+
+    @Query("SELECT COALESCE(c.name, t.id.name), t.quantity FROM PurchaseTotal t LEFT JOIN Category c ON c.id = t.id.keyId " +
+            "WHERE t.id.dimension = com.viser.StockTrade.enums.PurchaseTotalDimension.CATEGORY")
+    List<Object[]> findCategoryTotals();
+
+    @Query("SELECT COALESCE(p.name, t.id.name), t.quantity FROM PurchaseTotal t LEFT JOIN Product p ON p.id = t.id.keyId " +
+            "WHERE t.id.dimension = com.viser.StockTrade.enums.PurchaseTotalDimension.PRODUCT")
+    List<Object[]> findProductTotals();
+
+    @Query("SELECT COALESCE(s.name, t.id.name), t.quantity FROM PurchaseTotal t LEFT JOIN Supplier s ON s.id = t.id.keyId " +
+            "WHERE t.id.dimension = com.viser.StockTrade.enums.PurchaseTotalDimension.SUPPLIER")
+    List<Object[]> findSupplierTotals();
+}
@@ -0,0 +1,11 @@
+package com.viser.StockTrade.repository;
+
+import com.viser.StockTrade.entity.PurchaseTotalId;
+
+import java.util.Map;
+
+public interface PurchaseTotalRepositoryCustom {
+    void incrementAll(Map<PurchaseTotalId, Long> quantities);
+
+    void rebuild();
+}
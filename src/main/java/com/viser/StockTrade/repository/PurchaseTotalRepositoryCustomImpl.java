@@ -0,0 +1,51 @@
+package com.viser.StockTrade.repository;
+
+import com.viser.StockTrade.entity.PurchaseTotalId;
+import com.viser.StockTrade.enums.PurchaseTotalDimension;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@RequiredArgsConstructor
+public class PurchaseTotalRepositoryCustomImpl implements PurchaseTotalRepositoryCustom {
+    private static final String INCREMENT_TOTAL =
+            "INSERT INTO purchase_total (dimension, key_id, name, quantity) VALUES (?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE quantity = quantity + VALUES(quantity)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Adds the given quantities to the purchase totals in one JDBC batch, creating missing totals.
+     *
+     * The totals are updated in the iteration order of the map.
+     *
+     * @param quantities the quantities to be added, keyed by the dimension and key of the total
+     */
+    @Override
+    public void incrementAll(Map<PurchaseTotalId, Long> quantities) {
+        if (quantities.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<PurchaseTotalId, Long>> increments = new ArrayList<>(quantities.entrySet());
+        jdbcTemplate.batchUpdate(INCREMENT_TOTAL, increments, increments.size(), (ps, increment) -> {
+            ps.setString(1, increment.getKey().getDimension().name());
+            ps.setInt(2, increment.getKey().getKeyId());
+            ps.setString(3, increment.getKey().getName());
+            ps.setLong(4, increment.getValue());
+        });
+    }
+
+    /**
+     * Replaces all purchase totals with totals computed from the live and archived purchase items.
+     *
+     * The totals are kept per key and the name the items were saved with, the supplier name being taken from the
+     * purchase.
+     */
+    @Override
+    public void rebuild() {
+        PurchaseTotalRebuilder.rebuild(jdbcTemplate, "purchase_total", "name", PurchaseTotalDimension::getNameColumn);
+    }
+}
@@ -0,0 +1,21 @@
+package com.viser.StockTrade.repository;
+
+import com.viser.StockTrade.dto.StockMovementDto;
+import com.viser.StockTrade.entity.StockMovement;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface StockMovementRepository extends JpaRepository<StockMovement, Long>, StockMovementRepositoryCustom {
+    @Query("SELECT new com.viser.StockTrade.dto.StockMovementDto(m.id, m.createdAt, m.type, m.quantity, m.purchaseId) " +
+            "FROM StockMovement m WHERE m.productId = :productId AND m.createdAt >= :from AND m.createdAt < :to " +
+            "ORDER BY m.createdAt, m.id")
+    List<StockMovementDto> findHistory(@Param("productId") int productId, @Param("from") LocalDateTime from,
+                                       @Param("to") LocalDateTime to, Limit limit);
+}
@@ -0,0 +1,15 @@
+package com.viser.StockTrade.repository;
+
+import com.viser.StockTrade.entity.StockMovement;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface StockMovementRepositoryCustom {
+    void appendAll(List<StockMovement> movements);
+
+    int createSnapshots(Duration lag);
+
+    int getStockAt(int productId, LocalDateTime at);
+}
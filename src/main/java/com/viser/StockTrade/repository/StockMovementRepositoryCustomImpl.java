@@ -0,0 +1,105 @@
+package com.viser.StockTrade.repository;
+
+import com.viser.StockTrade.entity.StockMovement;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@RequiredArgsConstructor
+public class StockMovementRepositoryCustomImpl implements StockMovementRepositoryCustom {
+    private static final String INSERT_MOVEMENT =
+            "INSERT INTO stock_movement (product_id, type, quantity, purchase_id, created_at) VALUES (?, ?, ?, ?, CURRENT_TIMESTAMP(6))";
+    private static final String SELECT_SNAPSHOT_TIME =
+            "SELECT LEAST(NOW(6) - INTERVAL ? MICROSECOND, COALESCE(MIN(trx_started) - INTERVAL 1 SECOND, NOW(6))) " +
+            "FROM information_schema.innodb_trx";
+    private static final String INSERT_SNAPSHOTS =
+            "INSERT INTO stock_snapshot (product_id, snapshot_at, stock_quantity) " +
+            "SELECT m.product_id, ?, COALESCE(s.stock_quantity, 0) + SUM(m.quantity) " +
+            "FROM stock_movement m " +
+            "LEFT JOIN stock_snapshot s ON s.product_id = m.product_id " +
+            "AND s.snapshot_at = (SELECT MAX(s2.snapshot_at) FROM stock_snapshot s2 WHERE s2.product_id = m.product_id) " +
+            "WHERE m.created_at > COALESCE(s.snapshot_at, '1000-01-01') AND m.created_at <= ? " +
+            "GROUP BY m.product_id, s.stock_quantity";
+    private static final String SELECT_SNAPSHOT =
+            "SELECT snapshot_at, stock_quantity FROM stock_snapshot WHERE product_id = ? AND snapshot_at <= ? " +
+            "ORDER BY snapshot_at DESC LIMIT 1";
+    private static final String SUM_MOVEMENTS =
+            "SELECT COALESCE(SUM(quantity), 0) FROM stock_movement WHERE product_id = ? AND created_at > ? AND created_at <= ?";
+    private static final Timestamp NO_SNAPSHOT = Timestamp.valueOf("1000-01-01 00:00:00");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Appends stock movements to the ledger in one JDBC batch.
+     *
+     * Movements are never updated or deleted once they are written. Their creation time is taken from the clock of
+     * the database, like the opening movements of the migration that created the ledger, so all movements and
+     * snapshots are on the same clock.
+     *
+     * @param movements the movements to append
+     */
+    @Override
+    public void appendAll(List<StockMovement> movements) {
+        if (movements.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_MOVEMENT, movements, movements.size(), (ps, movement) -> {
+            ps.setInt(1, movement.getProductId());
+            ps.setString(2, movement.getType().name());
+            ps.setInt(3, movement.getQuantity());
+            if (movement.getPurchaseId() != null) {
+                ps.setInt(4, movement.getPurchaseId());
+            } else {
+                ps.setNull(4, Types.INTEGER);
+            }
+        });
+    }
+
+    /**
+     * Takes a stock snapshot for every product that has movements since its last snapshot.
+     *
+     * The stock of each snapshot is the stock of the previous snapshot of the product plus the movements after it,
+     * so only the movements since the last snapshot are read. A movement is created when its transaction inserts it,
+     * but only becomes visible when the transaction commits, and a later snapshot never counts movements from before
+     * the previous one again. The snapshot is therefore taken at the given lag behind the clock of the database, and
+     * also before the start of the oldest transaction that is still running, whose movements may still come. Reading
+     * the running transactions from {@code information_schema.innodb_trx} needs the {@code PROCESS} privilege.
+     *
+     * @param lag how far behind the clock of the database the snapshot is taken at least
+     * @return the number of products a snapshot was taken for
+     */
+    @Override
+    public int createSnapshots(Duration lag) {
+        Timestamp timestamp = jdbcTemplate.queryForObject(SELECT_SNAPSHOT_TIME, Timestamp.class,
+                TimeUnit.NANOSECONDS.toMicros(lag.toNanos()));
+        return jdbcTemplate.update(INSERT_SNAPSHOTS, timestamp, timestamp);
+    }
+
+    /**
+     * Calculates the stock quantity of a product at the given time.
+     *
+     * The latest snapshot of the product at or before the given time is read, and the movements between the snapshot
+     * and the given time are added to it. Both are range scans on the primary key of {@code stock_snapshot} and the
+     * {@code (product_id, created_at)} index of {@code stock_movement}.
+     *
+     * @param productId the ID of the product
+     * @param at the time of the stock quantity
+     * @return the stock quantity of the product at the given time
+     */
+    @Override
+    public int getStockAt(int productId, LocalDateTime at) {
+        Timestamp timestamp = Timestamp.valueOf(at);
+        List<Object[]> snapshots = jdbcTemplate.query(SELECT_SNAPSHOT,
+                (rs, rowNum) -> new Object[]{rs.getTimestamp(1), rs.getInt(2)}, productId, timestamp);
+        Timestamp snapshotAt = snapshots.isEmpty() ? NO_SNAPSHOT : (Timestamp) snapshots.getFirst()[0];
+        int snapshotQuantity = snapshots.isEmpty() ? 0 : (Integer) snapshots.getFirst()[1];
+        Integer movements = jdbcTemplate.queryForObject(SUM_MOVEMENTS, Integer.class, productId, snapshotAt, timestamp);
+        return snapshotQuantity + (movements != null ? movements : 0);
+    }
+}
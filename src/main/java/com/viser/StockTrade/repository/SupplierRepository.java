@@ -4,12 +4,17 @@ import com.viser.StockTrade.entity.Supplier;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface SupplierRepository extends JpaRepository<Supplier, Integer> {
     Supplier findById(int id);
 
     Supplier findByName(String name);
 
+    List<Supplier> findByNameIn(Collection<String> names);
+
     boolean existsByName(String name);
 
     long count();
@@ -8,6 +8,7 @@ import com.viser.StockTrade.exceptions.NotFoundException;
 import com.viser.StockTrade.exceptions.ValidationException;
 import com.viser.StockTrade.repository.CategoryRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.validation.BindingResult;
 
@@ -20,6 +21,7 @@ import static com.viser.StockTrade.exceptions.ExceptionHelper.*;
 @RequiredArgsConstructor
 public class CategoryService {
     private final CategoryRepository repo;
+    private final ConcurrencyRetryService concurrencyRetryService;
     private final FileService fileService;
 
     /**
@@ -154,7 +156,8 @@ public class CategoryService {
      * @param id the ID of the category to be edited
      * @param categoryDto the DTO containing the updated category data
      * @param result the binding result that holds validation errors, if any
-     * @throws ValidationException if there are validation errors in the provided DTO
+     * @throws ValidationException if there are validation errors in the provided DTO, or if the category was changed by
+     *                             someone else since the edit form was loaded
      * @throws NotFoundException if no category with the specified ID is found
      * @throws NameExistException if a category with the new name already exists
      * @throws IOException if an error occurs while handling the category icon
@@ -164,9 +167,28 @@ public class CategoryService {
         Category category = getById(id);
         throwNotFoundException(category, "Could not find any category with ID" + id, "/edit-category-page/" + id);
         throwNameExistException(isCategoryNameChangedAndExists(category, categoryDto), "A category with this name already exists. Please choose a different name.", "/edit-category-page/" + id);
+        if (categoryDto.getVersion() != null && categoryDto.getVersion() != category.getVersion()) {
+            throw versionConflict(category, "/edit-category-page/" + id);
+        }
         updateCategoryFields(category, categoryDto);
         handleCategoryIcon(category, categoryDto);
-        save(category);
+        try {
+            save(category);
+        } catch (OptimisticLockingFailureException e) {
+            throw versionConflict(category, "/edit-category-page/" + id);
+        }
+    }
+
+    /**
+     * Counts a rejected edit of a category and creates the {@link ValidationException} reported to the user.
+     *
+     * @param category the category that was changed by someone else
+     * @param redirectUrl the URL to redirect to
+     * @return the {@link ValidationException} to be thrown
+     */
+    private ValidationException versionConflict(Category category, String redirectUrl) {
+        concurrencyRetryService.recordConflict("category", category.getId(), category.getName());
+        return new ValidationException(VERSION_CONFLICT_MESSAGE, redirectUrl);
     }
 
     /**
@@ -1,21 +1,29 @@
 package com.viser.StockTrade.service;
 
+import com.viser.StockTrade.enums.ChartBucket;
+import com.viser.StockTrade.enums.PurchaseTotalDimension;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
 public class ChartService {
-    private final PurchaseItemService purchaseItemService;
+    private final PurchaseTotalService purchaseTotalService;
 
     /**
      * Retrieves purchase data grouped by category and returns it as a map.
      *
-     * This method queries the `purchaseItemService` for the count of purchases grouped by category.
+     * This method reads the total purchased quantity per category from the `purchaseTotalService`, which
+     * keeps precomputed rows per category, so no purchase items are scanned. Deleted categories are labelled with
+     * the name their purchase items were saved with, and rows with the same label are added up.
      * The results are then transformed into a `Map` where the key is the category name and the value
      * is the total number of purchases for that category.
      *
@@ -23,16 +31,18 @@ public class ChartService {
      *         is the total count of purchases (a {@link Long})
      */
     public Map<String, Long> chartPurchaseByCategoryData() {
-        List<Object[]> results = purchaseItemService.countPurchasesByCategory();
+        List<Object[]> results = purchaseTotalService.getCategoryTotals();
         Map<String, Long> categoryData = new HashMap<>();
-        results.forEach(result -> categoryData.put((String) result[0], (Long) result[1]));
+        results.forEach(result -> categoryData.merge((String) result[0], (Long) result[1], Long::sum));
         return categoryData;
     }
 
     /**
      * Retrieves purchase data grouped by supplier and returns it as a map.
      *
-     * This method queries the `purchaseItemService` for the sum of quantities purchased grouped by supplier.
+     * This method reads the total purchased quantity per supplier from the `purchaseTotalService`, which
+     * keeps precomputed rows per supplier, so no purchase items are scanned. Deleted suppliers are labelled with
+     * the name their purchase items were saved with, and rows with the same label are added up.
      * The results are then transformed into a `Map` where the key is the supplier name and the value
      * is the total quantity purchased from that supplier.
      *
@@ -40,16 +50,18 @@ public class ChartService {
      *         is the total quantity purchased from that supplier (a {@link Long})
      */
     public Map<String, Long> chartPurschaseBySupplierData() {
-        List<Object[]> results = purchaseItemService.sumQuantotyBySupplier();
+        List<Object[]> results = purchaseTotalService.getSupplierTotals();
         Map<String, Long> supplierData = new HashMap<>();
-        results.forEach(result -> supplierData.put((String) result[0], (Long) result[1]));
+        results.forEach(result -> supplierData.merge((String) result[0], (Long) result[1], Long::sum));
         return supplierData;
     }
 
     /**
      * Retrieves purchase data grouped by product and returns it as a map.
      *
-     * This method queries the `purchaseItemService` for the sum of quantities purchased grouped by product.
+     * This method reads the total purchased quantity per product from the `purchaseTotalService`, which
+     * keeps precomputed rows per product, so no purchase items are scanned. Deleted products are labelled with
+     * the name their purchase items were saved with, and rows with the same label are added up.
      * The results are then transformed into a `Map` where the key is the product name and the value
      * is the total quantity purchased for that product.
      *
@@ -57,9 +69,54 @@ public class ChartService {
      *         is the total quantity purchased for that product (a {@link Long})
      */
     public Map<String, Long> chartPurchaseByProductData() {
-        List<Object[]> results = purchaseItemService.sumQuantityByProduct();
+        List<Object[]> results = purchaseTotalService.getProductTotals();
         Map<String, Long> productData = new HashMap<>();
-        results.forEach(result -> productData.put((String) result[0], (Long) result[1]));
+        results.forEach(result -> productData.merge((String) result[0], (Long) result[1], Long::sum));
         return productData;
     }
+
+    /**
+     * Retrieves the purchased quantity per day, week or month in a period, optionally restricted to one category,
+     * product or supplier.
+     *
+     * This method reads at most one pre-aggregated row per day of the period from the `purchaseTotalService` and
+     * sums the days up into the requested buckets, so no purchase items are scanned however long the period is.
+     * Weeks start on Monday and months on their first day; a bucket is identified by its first day, even if that day
+     * lies before the start of the period. Every bucket of the period is contained in the result, with a quantity of
+     * zero if nothing was purchased.
+     *
+     * @param bucket the size of the buckets
+     * @param from the first day of the period, inclusive
+     * @param to the last day of the period, inclusive
+     * @param dimension the dimension of the key
+     * @param keyId the ID of the category, product or supplier, or {@code null} for all purchases
+     * @return a {@link Map} where the key is the first day of a bucket (a {@link LocalDate}) and the value is the
+     *         total quantity purchased in that bucket (a {@link Long}), ordered by date
+     */
+    public Map<LocalDate, Long> chartPurchaseSeries(ChartBucket bucket, LocalDate from, LocalDate to,
+                                                    PurchaseTotalDimension dimension, Integer keyId) {
+        Map<LocalDate, Long> seriesData = new LinkedHashMap<>();
+        for (LocalDate start = getBucketStart(bucket, from); !start.isAfter(to); start = getNextBucketStart(bucket, start)) {
+            seriesData.put(start, 0L);
+        }
+        List<Object[]> results = purchaseTotalService.getDailyQuantities(dimension, keyId, from, to);
+        results.forEach(result -> seriesData.merge(getBucketStart(bucket, (LocalDate) result[0]), (Long) result[1], Long::sum));
+        return seriesData;
+    }
+
+    private LocalDate getBucketStart(ChartBucket bucket, LocalDate date) {
+        return switch (bucket) {
+            case DAY -> date;
+            case WEEK -> date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH -> date.withDayOfMonth(1);
+        };
+    }
+
+    private LocalDate getNextBucketStart(ChartBucket bucket, LocalDate start) {
+        return switch (bucket) {
+            case DAY -> start.plusDays(1);
+            case WEEK -> start.plusWeeks(1);
+            case MONTH -> start.plusMonths(1);
+        };
+    }
 }
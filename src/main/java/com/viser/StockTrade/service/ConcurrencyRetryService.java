@@ -0,0 +1,99 @@
+package com.viser.StockTrade.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ConcurrencyRetryService {
+    private final MeterRegistry meterRegistry;
+
+    @Value("${myapp.custom.concurrency.retry.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${myapp.custom.concurrency.retry.initial-backoff:20ms}")
+    private Duration initialBackoff;
+
+    @Value("${myapp.custom.concurrency.retry.max-backoff:500ms}")
+    private Duration maxBackoff;
+
+    /**
+     * Runs an action, retrying it a bounded number of times if it fails because of a concurrent transaction.
+     *
+     * The action is retried on any {@link ConcurrencyFailureException}, such as an optimistic locking failure, a
+     * deadlock or a lock wait timeout. The action must therefore start its own transaction, so every attempt runs in
+     * a fresh one. Between the attempts the thread sleeps for a random time between zero and an exponentially growing
+     * backoff ("full jitter"), so competing requests do not collide again in lockstep.
+     *
+     * Every retry is counted in {@code concurrency.retries} and every action that still fails after the last attempt
+     * in {@code concurrency.retries.exhausted}, both tagged with the operation.
+     *
+     * @param operation the name of the operation, used as metric tag
+     * @param action the action to run
+     * @param <T> the result type of the action
+     * @return the result of the action
+     * @throws ConcurrencyFailureException if the last attempt fails because of a concurrent transaction
+     */
+    public <T> T execute(String operation, Supplier<T> action) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return action.get();
+            } catch (ConcurrencyFailureException e) {
+                if (attempt >= maxAttempts) {
+                    meterRegistry.counter("concurrency.retries.exhausted", "operation", operation).increment();
+                    throw e;
+                }
+                meterRegistry.counter("concurrency.retries", "operation", operation).increment();
+                backOff(attempt, e);
+            }
+        }
+    }
+
+    /**
+     * Runs an action without a result, retrying it like {@link #execute(String, Supplier)}.
+     *
+     * @param operation the name of the operation, used as metric tag
+     * @param action the action to run
+     */
+    public void execute(String operation, Runnable action) {
+        execute(operation, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Counts a write that was rejected because the entity was changed by someone else.
+     *
+     * The conflicts are counted in {@code optimistic.lock.conflicts}, tagged with the entity type only, so the number
+     * of time series stays bounded. The ID and name of the entity are logged instead, so frequently contended
+     * products, categories and suppliers can still be found.
+     *
+     * @param entity the type of the entity
+     * @param id the ID of the entity
+     * @param name the name of the entity
+     */
+    public void recordConflict(String entity, int id, String name) {
+        meterRegistry.counter("optimistic.lock.conflicts", "entity", entity).increment();
+        log.info("Rejected a concurrent edit of {} {} ({})", entity, id, name);
+    }
+
+    private void backOff(int attempt, ConcurrencyFailureException cause) {
+        long ceiling = Math.min(maxBackoff.toMillis(), initialBackoff.toMillis() << Math.min(attempt - 1, 20));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw cause;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.viser.StockTrade.service;
+
+import com.viser.StockTrade.dto.DashboardDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Service
+@RequiredArgsConstructor
+public class DashboardService {
+    private final ChartService chartService;
+    private final CategoryService categoryService;
+    private final ProductService productService;
+    private final SupplierService supplierService;
+    private final MeterRegistry meterRegistry;
+    private final AtomicLong generation = new AtomicLong();
+    private volatile CachedDashboard cached;
+    private CompletableFuture<CachedDashboard> refresh;
+    private ScheduledExecutorService refresher;
+
+    @Value("${myapp.custom.dashboard.cache.ttl:5m}")
+    private Duration ttl;
+
+    @Value("${myapp.custom.dashboard.cache.refresh-ahead:1m}")
+    private Duration refreshAhead;
+
+    /**
+     * Starts the thread that rebuilds the cached dashboard.
+     *
+     * The dashboard is rebuilt whenever it is older than its time to live minus the refresh-ahead time, so it is
+     * replaced before it expires and requests do not have to wait for a rebuild. The age is checked every half of the
+     * refresh-ahead time, so a dashboard that was rebuilt in between, e.g. after {@link #invalidate()}, is also
+     * replaced in time.
+     */
+    @PostConstruct
+    public void init() {
+        refresher = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("dashboard-refresh-"));
+        long interval = Math.max(refreshAhead.toMillis() / 2, 1000);
+        refresher.scheduleWithFixedDelay(this::refreshIfAging, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    /**
+     * Retrieves the dashboard with the counters and the chart data of the index page.
+     *
+     * The dashboard is served from memory as long as it is younger than its time to live and no purchase has been
+     * committed since it was built. Otherwise the request waits for a rebuild that includes all purchases committed
+     * before the request. Hits and misses are counted as the {@code cache.gets} metric with the tag
+     * {@code cache=dashboard}.
+     *
+     * @return the current {@link DashboardDto}
+     */
+    public DashboardDto get() {
+        long wanted = generation.get();
+        CachedDashboard dashboard = cached;
+        if (dashboard != null && dashboard.generation() >= wanted
+                && Duration.between(dashboard.builtAt(), Instant.now()).compareTo(ttl) < 0) {
+            meterRegistry.counter("cache.gets", "cache", "dashboard", "result", "hit").increment();
+            return dashboard.dashboard();
+        }
+        meterRegistry.counter("cache.gets", "cache", "dashboard", "result", "miss").increment();
+        do {
+            dashboard = refreshAsync().join();
+        } while (dashboard.generation() < wanted);
+        return dashboard.dashboard();
+    }
+
+    /**
+     * Marks the cached dashboard as outdated and starts rebuilding it in the background.
+     *
+     * Invalidations that arrive while a rebuild is running are coalesced into a single further rebuild.
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+        refreshAsync();
+    }
+
+    private void refreshIfAging() {
+        CachedDashboard dashboard = cached;
+        if (dashboard == null || Duration.between(dashboard.builtAt(), Instant.now()).compareTo(ttl.minus(refreshAhead)) >= 0) {
+            refreshAsync();
+        }
+    }
+
+    /**
+     * Starts a rebuild of the dashboard, unless one is already running.
+     *
+     * @return a {@link CompletableFuture} that completes with the rebuilt dashboard
+     */
+    private synchronized CompletableFuture<CachedDashboard> refreshAsync() {
+        if (refresh == null) {
+            refresh = CompletableFuture.supplyAsync(this::rebuild, refresher);
+        }
+        return refresh;
+    }
+
+    /**
+     * Builds the dashboard and puts it into the cache.
+     *
+     * The cache is updated before the returned future completes, so a request that waited for the rebuild and then
+     * reads the cache sees the new dashboard. If the dashboard was invalidated while it was built, another rebuild is
+     * started. The time taken is recorded as the {@code dashboard.rebuild} metric.
+     *
+     * @return the rebuilt dashboard
+     */
+    private CachedDashboard rebuild() {
+        long built = generation.get();
+        CachedDashboard dashboard = null;
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            dashboard = new CachedDashboard(new DashboardDto(categoryService.countAll(), productService.countAll(),
+                    supplierService.countAll(), chartService.chartPurchaseByCategoryData(),
+                    chartService.chartPurschaseBySupplierData(), chartService.chartPurchaseByProductData()),
+                    built, Instant.now());
+            return dashboard;
+        } finally {
+            sample.stop(meterRegistry.timer("dashboard.rebuild"));
+            synchronized (this) {
+                if (dashboard != null) {
+                    cached = dashboard;
+                }
+                refresh = null;
+                if (dashboard != null && built != generation.get()) {
+                    refreshAsync();
+                }
+            }
+        }
+    }
+
+    private record CachedDashboard(DashboardDto dashboard, long generation, Instant builtAt) {
+    }
+}
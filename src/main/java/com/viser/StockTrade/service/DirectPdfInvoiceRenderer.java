@@ -0,0 +1,198 @@
+package com.viser.StockTrade.service;
+
+import com.lowagie.text.*;
+import com.lowagie.text.pdf.PdfPCell;
+import com.lowagie.text.pdf.PdfPTable;
+import com.lowagie.text.pdf.PdfWriter;
+import com.viser.StockTrade.dto.InvoiceDto;
+import com.viser.StockTrade.entity.Purchase;
+import com.viser.StockTrade.entity.Supplier;
+import jakarta.annotation.PostConstruct;
+import net.sf.jasperreports.engine.JRException;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+
+@Service
+public class DirectPdfInvoiceRenderer implements InvoiceRenderer {
+    /**
+     * Version of the layout below. Bump it whenever the rendered output changes, so cached invoices are rendered again.
+     */
+    private static final String VERSION = "2";
+    private static final Color HEADER_COLOR = new Color(0xBF, 0xE1, 0xFF);
+    private static final Color TITLE_COLOR = new Color(0x52, 0x32, 0x7A);
+
+    private Image logo;
+    private Image supplierLogo;
+
+    /**
+     * Loads and decodes the logos printed on the invoice once, so they are not read and decoded for every invoice.
+     *
+     * @throws IOException if a logo cannot be read
+     */
+    @PostConstruct
+    public void loadImages() throws IOException {
+        logo = readImage("static/img/logo.png");
+        supplierLogo = readImage("static/img/supplierLogo.jpg");
+    }
+
+    @Override
+    public String getName() {
+        return "direct";
+    }
+
+    @Override
+    public String getVersion() {
+        return VERSION;
+    }
+
+    @Override
+    public MediaType getContentType() {
+        return MediaType.APPLICATION_PDF;
+    }
+
+    /**
+     * Writes the invoice of a purchase straight to PDF, without filling a report template.
+     *
+     * The layout follows the {@code invoice.jrxml} template: the header with the supplier and customer details,
+     * the table of invoice lines with the total amount and the footer. The lines are added to the document one by
+     * one, so no intermediate page model is built.
+     *
+     * @param purchase the {@link Purchase} to be printed on the invoice
+     * @param supplier the {@link Supplier} of the purchase
+     * @param lines the invoice lines of the purchase
+     * @param outputStream the stream the PDF is written to
+     * @throws JRException if there is an error while writing the PDF
+     */
+    @Override
+    public void render(Purchase purchase, Supplier supplier, List<InvoiceDto> lines, OutputStream outputStream) throws JRException {
+        Document document = new Document(PageSize.A4, 20, 20, 20, 20);
+        try {
+            PdfWriter.getInstance(document, outputStream).setCloseStream(false);
+            document.open();
+            document.add(header(purchase, supplier));
+            document.add(parties(purchase, supplier));
+            document.add(lines(purchase, lines));
+            document.add(footer());
+        } catch (DocumentException e) {
+            throw new JRException("Could not render invoice " + purchase.getId(), e);
+        } finally {
+            if (document.isOpen()) {
+                document.close();
+            }
+        }
+    }
+
+    private PdfPTable header(Purchase purchase, Supplier supplier) {
+        PdfPTable table = table(new float[]{50, 250, 210}, 0);
+        table.addCell(imageCell(supplierLogo, 40));
+        table.addCell(cell(purchase.getSupplierName(), font(12, Font.NORMAL), Element.ALIGN_LEFT));
+        PdfPCell title = cell("INVOICE", new Font(Font.TIMES_ROMAN, 20, Font.NORMAL, TITLE_COLOR), Element.ALIGN_RIGHT);
+        table.addCell(title);
+
+        PdfPCell rule = cell("", font(10, Font.NORMAL), Element.ALIGN_LEFT);
+        rule.setColspan(3);
+        rule.setBorder(Rectangle.BOTTOM);
+        table.addCell(rule);
+
+        PdfPCell supplierName = cell(purchase.getSupplierName(), font(12, Font.BOLD), Element.ALIGN_LEFT);
+        supplierName.setColspan(2);
+        table.addCell(supplierName);
+        table.addCell(cell("Date: " + purchase.getDate() + "\nInvoice # " + purchase.getId(), font(10, Font.NORMAL), Element.ALIGN_RIGHT));
+        return table;
+    }
+
+    private PdfPTable parties(Purchase purchase, Supplier supplier) {
+        Font font = font(10, Font.NORMAL);
+        PdfPTable table = table(new float[]{50, 270, 50, 110, 30}, 10);
+        table.addCell(cell("Supplier:", font, Element.ALIGN_LEFT));
+        table.addCell(cell(purchase.getSupplierName() + "\n" + supplier.getAddress() + "\n" + supplier.getPhone() + "\n"
+                + supplier.getEmail(), font, Element.ALIGN_LEFT));
+        table.addCell(cell("Customer:", font, Element.ALIGN_LEFT));
+        table.addCell(cell("STOCK-TRADE\nKneza Mihaila 33D, Arandjelovac, Srbija, 34300\n0652010241\nstocktrade@gmail.com",
+                font, Element.ALIGN_LEFT));
+        table.addCell(imageCell(logo, 30));
+        return table;
+    }
+
+    private PdfPTable lines(Purchase purchase, List<InvoiceDto> lines) {
+        Font font = font(10, Font.NORMAL);
+        PdfPTable table = table(new float[]{80, 210, 110, 110}, 10);
+        table.setHeaderRows(1);
+        for (String heading : new String[]{"QTY", "PRODUCT", "UNIT PRICE", "LINE TOTAL"}) {
+            table.addCell(tableCell(heading, font, HEADER_COLOR));
+        }
+        for (InvoiceDto line : lines) {
+            table.addCell(tableCell(String.valueOf(line.getQuantity()), font, Color.WHITE));
+            table.addCell(tableCell(line.getProduct(), font, Color.WHITE));
+            table.addCell(tableCell(InvoiceRenderer.formatAmount(line.getUnitPrice()), font, Color.WHITE));
+            table.addCell(tableCell(InvoiceRenderer.formatAmount(line.getLineTotal()), font, Color.WHITE));
+        }
+        table.addCell(tableCell("", font, HEADER_COLOR));
+        table.addCell(tableCell("", font, HEADER_COLOR));
+        table.addCell(tableCell("TOTAL", font, HEADER_COLOR));
+        table.addCell(tableCell(InvoiceRenderer.formatAmount(purchase.getTotalAmount()), font, HEADER_COLOR));
+        return table;
+    }
+
+    private PdfPTable footer() {
+        PdfPTable table = table(new float[]{510}, 20);
+        table.addCell(cell("This invoice has been issued in accordance with applicable laws and regulations. "
+                + "Please make the payment within 30 days.", font(10, Font.NORMAL), Element.ALIGN_LEFT));
+        PdfPCell thanks = cell("THANKYOU FOR YOUR BUSINESS", font(14, Font.BOLD), Element.ALIGN_CENTER);
+        thanks.setBackgroundColor(HEADER_COLOR);
+        table.addCell(thanks);
+        return table;
+    }
+
+    private PdfPTable table(float[] widths, float spacingBefore) {
+        PdfPTable table = new PdfPTable(widths);
+        table.setTotalWidth(510);
+        table.setLockedWidth(true);
+        table.setSpacingBefore(spacingBefore);
+        return table;
+    }
+
+    private PdfPCell cell(String text, Font font, int alignment) {
+        PdfPCell cell = new PdfPCell(new Phrase(text, font));
+        cell.setBorder(Rectangle.NO_BORDER);
+        cell.setHorizontalAlignment(alignment);
+        cell.setVerticalAlignment(Element.ALIGN_MIDDLE);
+        return cell;
+    }
+
+    private PdfPCell tableCell(String text, Font font, Color background) {
+        PdfPCell cell = new PdfPCell(new Phrase(text, font));
+        cell.setBorderWidth(0.5f);
+        cell.setBackgroundColor(background);
+        cell.setHorizontalAlignment(Element.ALIGN_CENTER);
+        cell.setVerticalAlignment(Element.ALIGN_MIDDLE);
+        cell.setFixedHeight(20);
+        return cell;
+    }
+
+    private PdfPCell imageCell(Image image, float height) {
+        Image pdfImage = Image.getInstance(image);
+        pdfImage.scaleToFit(height, height);
+        PdfPCell cell = new PdfPCell(pdfImage, false);
+        cell.setBorder(Rectangle.NO_BORDER);
+        cell.setVerticalAlignment(Element.ALIGN_MIDDLE);
+        return cell;
+    }
+
+    private Font font(float size, int style) {
+        return new Font(Font.TIMES_ROMAN, size, style);
+    }
+
+    private Image readImage(String path) throws IOException {
+        try (InputStream input = new ClassPathResource(path).getInputStream()) {
+            return Image.getInstance(input.readAllBytes());
+        }
+    }
+}
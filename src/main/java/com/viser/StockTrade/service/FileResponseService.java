@@ -0,0 +1,143 @@
+package com.viser.StockTrade.service;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import net.sf.jasperreports.engine.JRException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+@Service
+public class FileResponseService {
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    /**
+     * Writes a file to the response without loading it into memory, honouring a single HTTP byte range.
+     *
+     * The file is opened once and its length is taken from the open channel, so it cannot change between the
+     * headers and the content. If the file is deleted before it can be opened, e.g. because it was evicted from a
+     * cache, the source is asked for the file once more.
+     *
+     * If the request contains a Range header with one range, and its If-Range header (if any) matches the current
+     * ETag, only that part of the file is sent with status 206 Partial Content. Requests with several ranges or an
+     * invalid Range header get the whole file, and ranges outside of the file get 416 Range Not Satisfiable. When the
+     * servlet container supports sendfile, the file is handed over to it and copied to the socket by the operating
+     * system; otherwise it is copied to the response stream with {@link FileChannel#transferTo} in bounded chunks,
+     * without loading the whole file into memory.
+     *
+     * @param source the source of the file to be sent
+     * @param contentType the content type of the file
+     * @param contentDisposition the value of the Content-Disposition header
+     * @param eTag the current ETag of the file, used to evaluate the If-Range header
+     * @param request the current request
+     * @param response the current response
+     * @throws IOException if the file cannot be read or the response cannot be written
+     * @throws JRException if the source cannot render the file again
+     */
+    public void send(FileSource source, MediaType contentType, String contentDisposition, String eTag,
+                     HttpServletRequest request, HttpServletResponse response) throws IOException, JRException {
+        Path file = source.get();
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            file = source.get();
+            if (file == null) {
+                throw e;
+            }
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+        }
+        try (FileChannel opened = channel) {
+            long length = opened.size();
+            long start = 0;
+            long end = length - 1;
+
+            response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, contentDisposition);
+            response.setContentType(contentType.toString());
+
+            String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+            if (rangeHeader != null && isRangeApplicable(request.getHeader(HttpHeaders.IF_RANGE), eTag)) {
+                List<HttpRange> ranges = parseRanges(rangeHeader);
+                if (ranges.size() == 1) {
+                    start = ranges.get(0).getRangeStart(length);
+                    end = ranges.get(0).getRangeEnd(length);
+                    if (start >= length || start > end) {
+                        response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                        response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                        return;
+                    }
+                    response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+                }
+            }
+            response.setContentLengthLong(end - start + 1);
+            if (HttpMethod.HEAD.matches(request.getMethod()) || length == 0) {
+                return;
+            }
+
+            if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+                request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+                request.setAttribute(SENDFILE_START, start);
+                request.setAttribute(SENDFILE_END, end + 1);
+                return;
+            }
+            WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            while (position <= end) {
+                long transferred = opened.transferTo(position, end - position + 1, target);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+            }
+        }
+    }
+
+    /**
+     * Parses a Range header, ignoring it if it is not valid, as allowed by RFC 9110.
+     *
+     * @param rangeHeader the value of the Range header
+     * @return the requested ranges, or an empty list if the header is not valid
+     */
+    private List<HttpRange> parseRanges(String rangeHeader) {
+        try {
+            return HttpRange.parseRanges(rangeHeader);
+        } catch (IllegalArgumentException e) {
+            return List.of();
+        }
+    }
+
+    /**
+     * Checks if the Range header should be honoured, i.e. there is no If-Range header or it matches the current ETag.
+     *
+     * @param ifRange the value of the If-Range header, may be {@code null}
+     * @param eTag the current ETag of the file
+     * @return {@code true} if the requested range can be sent, {@code false} if the whole file must be sent
+     */
+    private boolean isRangeApplicable(String ifRange, String eTag) {
+        return ifRange == null || ifRange.trim().equals(eTag);
+    }
+
+    /**
+     * Supplies the file to be sent, rendering it again if it is no longer cached, or {@code null} if it is gone.
+     */
+    @FunctionalInterface
+    public interface FileSource {
+        Path get() throws JRException;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,123 @@
+package com.viser.StockTrade.service;
+
+import com.viser.StockTrade.dto.InvoiceDto;
+import com.viser.StockTrade.entity.Purchase;
+import com.viser.StockTrade.entity.Supplier;
+import net.sf.jasperreports.engine.JRException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.util.HtmlUtils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+@Service
+public class HtmlInvoiceRenderer implements InvoiceRenderer {
+    /**
+     * Version of the layout below. Bump it whenever the rendered output changes, so cached invoices are rendered again.
+     */
+    private static final String VERSION = "2";
+    private static final MediaType TEXT_HTML_UTF8 = new MediaType(MediaType.TEXT_HTML, StandardCharsets.UTF_8);
+    private static final String STYLE = """
+            <style>
+            @page { size: A4; margin: 20pt; }
+            body { font-family: 'Times New Roman', serif; font-size: 10pt; width: 510pt; margin: 0 auto; }
+            .header, .parties { width: 100%; border-collapse: collapse; }
+            .title { color: #52327A; font-size: 20pt; text-align: right; }
+            .meta { text-align: right; }
+            hr { border: 0; border-top: 1px solid #000; }
+            .lines { width: 100%; border-collapse: collapse; margin-top: 10pt; }
+            .lines th, .lines td { border: 0.5pt solid #000; height: 20pt; text-align: center; }
+            .lines th, .lines tfoot td { background: #BFE1FF; }
+            .lines thead { display: table-header-group; }
+            .lines tr { page-break-inside: avoid; }
+            .thanks { background: #BFE1FF; font-size: 14pt; font-weight: bold; text-align: center; padding: 5pt; }
+            </style>
+            """;
+
+    @Override
+    public String getName() {
+        return "html";
+    }
+
+    @Override
+    public String getVersion() {
+        return VERSION;
+    }
+
+    @Override
+    public MediaType getContentType() {
+        return TEXT_HTML_UTF8;
+    }
+
+    /**
+     * Writes the invoice of a purchase as a print-ready HTML page.
+     *
+     * The page follows the layout of the {@code invoice.jrxml} template and uses print styles, so the browser can
+     * print it or save it as PDF. The table header is repeated on every printed page.
+     *
+     * @param purchase the {@link Purchase} to be printed on the invoice
+     * @param supplier the {@link Supplier} of the purchase
+     * @param lines the invoice lines of the purchase
+     * @param outputStream the stream the HTML is written to
+     * @throws JRException if there is an error while writing the HTML
+     */
+    @Override
+    public void render(Purchase purchase, Supplier supplier, List<InvoiceDto> lines, OutputStream outputStream) throws JRException {
+        try {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            writer.write("<!DOCTYPE html>\n<html><head><meta charset=\"UTF-8\"><title>Invoice #");
+            writer.write(String.valueOf(purchase.getId()));
+            writer.write("</title>\n");
+            writer.write(STYLE);
+            writer.write("</head><body>\n<table class=\"header\"><tr><td><img src=\"/img/supplierLogo.jpg\" height=\"40\" alt=\"\"> ");
+            writer.write(escape(purchase.getSupplierName()));
+            writer.write("</td><td class=\"title\">INVOICE</td></tr></table>\n<hr>\n");
+            writer.write("<table class=\"header\"><tr><td><b>");
+            writer.write(escape(purchase.getSupplierName()));
+            writer.write("</b></td><td class=\"meta\">Date: ");
+            writer.write(escape(purchase.getDate()));
+            writer.write("<br>Invoice # ");
+            writer.write(String.valueOf(purchase.getId()));
+            writer.write("</td></tr></table>\n<hr>\n<table class=\"parties\"><tr><td>Supplier:</td><td>");
+            writer.write(escape(purchase.getSupplierName()));
+            writer.write("<br>");
+            writer.write(escape(supplier.getAddress()));
+            writer.write("<br>");
+            writer.write(escape(supplier.getPhone()));
+            writer.write("<br>");
+            writer.write(escape(supplier.getEmail()));
+            writer.write("</td><td>Customer:</td><td>STOCK-TRADE<br>Kneza Mihaila 33D, Arandjelovac, Srbija, 34300<br>"
+                    + "0652010241<br>stocktrade@gmail.com</td><td><img src=\"/img/logo.png\" height=\"30\" alt=\"\"></td></tr></table>\n");
+            writer.write("<table class=\"lines\"><thead><tr><th>QTY</th><th>PRODUCT</th><th>UNIT PRICE</th><th>LINE TOTAL</th></tr></thead>\n<tbody>\n");
+            for (InvoiceDto line : lines) {
+                writer.write("<tr><td>");
+                writer.write(String.valueOf(line.getQuantity()));
+                writer.write("</td><td>");
+                writer.write(escape(line.getProduct()));
+                writer.write("</td><td>");
+                writer.write(InvoiceRenderer.formatAmount(line.getUnitPrice()));
+                writer.write("</td><td>");
+                writer.write(InvoiceRenderer.formatAmount(line.getLineTotal()));
+                writer.write("</td></tr>\n");
+            }
+            writer.write("</tbody>\n<tfoot><tr><td></td><td></td><td>TOTAL</td><td>");
+            writer.write(InvoiceRenderer.formatAmount(purchase.getTotalAmount()));
+            writer.write("</td></tr></tfoot></table>\n<p>This invoice has been issued in accordance with applicable laws and "
+                    + "regulations. Please make the payment within 30 days.</p>\n<div class=\"thanks\">THANKYOU FOR YOUR BUSINESS</div>\n");
+            writer.write("</body></html>\n");
+            writer.flush();
+        } catch (IOException e) {
+            throw new JRException("Could not render invoice " + purchase.getId(), e);
+        }
+    }
+
+    private String escape(Object value) {
+        return value != null ? HtmlUtils.htmlEscape(value.toString()) : "";
+    }
+}
@@ -0,0 +1,78 @@
+package com.viser.StockTrade.service;
+
+import com.viser.StockTrade.entity.IdempotencyKey;
+import com.viser.StockTrade.repository.IdempotencyKeyRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+@Service
+@RequiredArgsConstructor
+public class IdempotencyService {
+    public static final int MAX_KEY_LENGTH = 100;
+
+    private final IdempotencyKeyRepository repo;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${myapp.custom.purchase.idempotency.ttl:24h}")
+    private Duration ttl;
+
+    /**
+     * Retrieves an idempotency key that has not expired yet.
+     *
+     * Only keys whose write has been committed are visible, so a returned key always belongs to a saved purchase.
+     *
+     * @param key the idempotency key sent by the client
+     * @return the {@link IdempotencyKey}, or {@code null} if the key is unknown or has expired
+     */
+    public IdempotencyKey get(String key) {
+        return repo.findActive(key, LocalDateTime.now());
+    }
+
+    /**
+     * Reserves an idempotency key in the current transaction.
+     *
+     * This method must be called before the write it protects, in the same transaction. The key is inserted
+     * right away, so a concurrent request with the same key blocks on the primary key until this transaction
+     * finishes and then fails with a duplicate key error instead of running the write a second time. An expired
+     * key with the same value is removed first, so keys can be reused once their time to live has passed.
+     *
+     * @param key the idempotency key sent by the client
+     * @param requestHash the hash of the request the key is used for
+     */
+    public void reserve(String key, String requestHash) {
+        LocalDateTime now = LocalDateTime.now();
+        repo.deleteExpired(key, now);
+        repo.insert(key, requestHash, now, now.plus(ttl));
+    }
+
+    /**
+     * Stores the ID of the purchase created for a reserved idempotency key in the current transaction.
+     *
+     * @param key the reserved idempotency key
+     * @param purchaseId the ID of the created purchase
+     */
+    public void complete(String key, int purchaseId) {
+        repo.updatePurchaseId(key, purchaseId);
+    }
+
+    /**
+     * Counts a request that was answered with the stored result of an idempotency key.
+     */
+    public void recordReplay() {
+        meterRegistry.counter("purchase.idempotency.replays").increment();
+    }
+
+    /**
+     * Removes idempotency keys that are older than the configured time to live.
+     */
+    @Scheduled(fixedDelayString = "${myapp.custom.purchase.idempotency.cleanup-interval:600000}")
+    public void removeExpiredKeys() {
+        repo.deleteAllExpired(LocalDateTime.now());
+    }
+}
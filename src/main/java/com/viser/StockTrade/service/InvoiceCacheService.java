@@ -0,0 +1,281 @@
+package com.viser.StockTrade.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import net.sf.jasperreports.engine.JRException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+@Service
+@RequiredArgsConstructor
+public class InvoiceCacheService {
+    private static final String FILE_SUFFIX = ".invoice";
+
+    private final Map<String, byte[]> memory = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong diskBytes = new AtomicLong();
+    private long memoryBytes;
+
+    @Value("${myapp.custom.invoice.cache.dir}")
+    private String CACHE_DIR;
+
+    @Value("${myapp.custom.invoice.cache.memory-max-bytes:33554432}")
+    private long memoryMaxBytes;
+
+    @Value("${myapp.custom.invoice.cache.disk-max-bytes:1073741824}")
+    private long diskMaxBytes;
+
+    /**
+     * Creates the disk cache directory and calculates how much space the already cached invoices use.
+     *
+     * @throws IOException if the cache directory cannot be created or read
+     */
+    @PostConstruct
+    public void init() throws IOException {
+        Files.createDirectories(cacheDir());
+        try (Stream<Path> files = cachedFiles()) {
+            diskBytes.set(files.mapToLong(this::sizeOf).sum());
+        }
+    }
+
+    /**
+     * Builds the cache key of the invoice for the given purchase.
+     *
+     * Purchases never change after they are saved, but the invoice prints the current details of the supplier. The
+     * key therefore depends on the purchase ID, the revision of the supplier and the name and layout version of the
+     * renderer, so editing the supplier or the layout leaves the cached invoices behind instead of serving them.
+     *
+     * @param purchaseId the ID of the purchase
+     * @param supplierRevision the ID and version of the supplier, as returned by
+     *                         {@link PurchaseService#getSupplierRevision(int)}
+     * @param renderer the {@link InvoiceRenderer} the invoice is rendered with
+     * @return the cache key of the invoice
+     * @throws JRException if the invoice layout cannot be loaded
+     */
+    public String getKey(int purchaseId, String supplierRevision, InvoiceRenderer renderer) throws JRException {
+        return purchaseId + "-" + supplierRevision + "-" + renderer.getName() + "-" + renderer.getVersion();
+    }
+
+    /**
+     * Builds the strong ETag of the invoice with the given cache key.
+     *
+     * @param key the cache key of the invoice
+     * @return the quoted ETag value
+     */
+    public String getETag(String key) {
+        return "\"" + key + "\"";
+    }
+
+    /**
+     * Retrieves a rendered invoice from the cache.
+     *
+     * The in-memory tier is checked first. On a miss, the disk tier is checked and a hit is promoted to memory.
+     *
+     * @param key the cache key of the invoice
+     * @return the rendered invoice, or {@code null} if the invoice is not cached
+     */
+    public byte[] get(String key) {
+        synchronized (memory) {
+            byte[] pdf = memory.get(key);
+            if (pdf != null) {
+                return pdf;
+            }
+        }
+        Path file = fileFor(key);
+        try {
+            byte[] pdf = Files.readAllBytes(file);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            putInMemory(key, pdf);
+            return pdf;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Retrieves the disk file of a cached invoice, without reading it into memory.
+     *
+     * The modification time of the file is updated, so it counts as recently used for eviction.
+     *
+     * @param key the cache key of the invoice
+     * @return the path of the cached file, or {@code null} if the invoice is not cached on disk
+     */
+    public Path getFile(String key) {
+        Path file = fileFor(key);
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return file;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Stores a rendered invoice in both cache tiers.
+     *
+     * The file is first written under a temporary name and then moved into place, so readers never see a partially
+     * written invoice. If the disk tier grows over its limit, the least recently used files are removed.
+     *
+     * @param key the cache key of the invoice
+     * @param pdf the rendered invoice
+     */
+    public void put(String key, byte[] pdf) {
+        putInMemory(key, pdf);
+        try {
+            Path tmp = Files.createTempFile(cacheDir(), key, ".tmp");
+            Files.write(tmp, pdf);
+            moveIntoPlace(tmp, fileFor(key));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Renders an invoice straight into the disk tier, without holding it in memory.
+     *
+     * The writer gets a buffered stream to a temporary file, which is moved into place once the writer has finished.
+     * If the writer fails, the temporary file is removed and nothing is cached.
+     *
+     * @param key the cache key of the invoice
+     * @param writer writes the rendered invoice to the given stream
+     * @return the path of the cached file
+     * @throws JRException if the writer fails to render the invoice
+     */
+    public Path write(String key, InvoiceWriter writer) throws JRException {
+        Path file = fileFor(key);
+        try {
+            Path tmp = Files.createTempFile(cacheDir(), key, ".tmp");
+            try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(tmp))) {
+                writer.write(outputStream);
+            } catch (JRException | IOException | RuntimeException e) {
+                Files.deleteIfExists(tmp);
+                throw e;
+            }
+            moveIntoPlace(tmp, file);
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Atomically replaces the cached file with a fully written temporary file and updates the disk usage.
+     *
+     * @param tmp the temporary file
+     * @param file the cache file
+     * @throws IOException if the file cannot be moved
+     */
+    private void moveIntoPlace(Path tmp, Path file) throws IOException {
+        long size = Files.size(tmp);
+        long previousSize = Files.exists(file) ? sizeOf(file) : 0;
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        if (diskBytes.addAndGet(size - previousSize) > diskMaxBytes) {
+            evictFromDisk();
+        }
+    }
+
+    /**
+     * Adds an invoice to the in-memory tier, evicting the least recently used entries while the tier is over its limit.
+     *
+     * @param key the cache key of the invoice
+     * @param pdf the rendered invoice
+     */
+    private void putInMemory(String key, byte[] pdf) {
+        if (pdf.length > memoryMaxBytes) {
+            return;
+        }
+        synchronized (memory) {
+            byte[] previous = memory.put(key, pdf);
+            memoryBytes += pdf.length - (previous != null ? previous.length : 0);
+            Iterator<byte[]> iterator = memory.values().iterator();
+            while (memoryBytes > memoryMaxBytes && iterator.hasNext()) {
+                memoryBytes -= iterator.next().length;
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Removes the least recently used invoices from the disk tier until it uses at most 90% of its limit.
+     */
+    private synchronized void evictFromDisk() {
+        long target = diskMaxBytes * 9 / 10;
+        if (diskBytes.get() <= target) {
+            return;
+        }
+        List<Path> files;
+        try (Stream<Path> stream = cachedFiles()) {
+            files = stream.sorted(Comparator.comparing(this::lastModified)).toList();
+        }
+        for (Path file : files) {
+            if (diskBytes.get() <= target) {
+                break;
+            }
+            long size = sizeOf(file);
+            try {
+                if (Files.deleteIfExists(file)) {
+                    diskBytes.addAndGet(-size);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private Stream<Path> cachedFiles() {
+        try {
+            return Files.list(cacheDir()).filter(file -> file.getFileName().toString().endsWith(FILE_SUFFIX));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Path cacheDir() {
+        return Paths.get(CACHE_DIR);
+    }
+
+    private Path fileFor(String key) {
+        return cacheDir().resolve(key + FILE_SUFFIX);
+    }
+
+    private long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    /**
+     * Writes a rendered invoice to a stream.
+     */
+    @FunctionalInterface
+    public interface InvoiceWriter {
+        void write(OutputStream outputStream) throws JRException;
+    }
+}
@@ -0,0 +1,139 @@
+package com.viser.StockTrade.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+@Service
+@RequiredArgsConstructor
+public class InvoiceExportService {
+    private final PurchaseService purchaseService;
+    private final InvoiceService invoiceService;
+    private final InvoiceRenderPool renderPool;
+
+    @Value("${myapp.custom.invoice.export.max-in-flight:4}")
+    private int maxInFlight;
+
+    @Value("${myapp.custom.invoice.export.queue-timeout:30s}")
+    private Duration queueTimeout;
+
+    private Semaphore inFlight;
+
+    /**
+     * Creates the limit of export invoices that are being rendered or waiting to be written, shared by all exports.
+     */
+    @PostConstruct
+    public void init() {
+        inFlight = new Semaphore(maxInFlight);
+    }
+
+    /**
+     * Creates a response body that streams the invoices of all matching purchases as a ZIP archive.
+     *
+     * The invoices are rendered in parallel on the {@link InvoiceRenderPool}, reusing the cached rendering path of
+     * {@link InvoiceService}. Only a bounded number of invoices is rendered at a time, and each one is written to
+     * the archive as soon as it is ready and in date order, so memory use does not depend on the number of invoices.
+     * Invoices that cannot be rendered, or whose render cannot be queued within the queue timeout, are listed in an
+     * {@code errors.txt} entry at the end of the archive. If writing the archive fails, e.g. because the client
+     * disconnected, the renders that are still pending are cancelled.
+     *
+     * @param from the earliest purchase date, inclusive, or {@code null}
+     * @param to the latest purchase date, inclusive, or {@code null}
+     * @param supplier the name of the supplier, or {@code null}
+     * @return a {@link StreamingResponseBody} writing the ZIP archive
+     */
+    public StreamingResponseBody exportZip(LocalDate from, LocalDate to, String supplier) {
+        List<Integer> ids = purchaseService.getIdsByDateAndSupplier(from, to, supplier);
+        return outputStream -> writeZip(ids, outputStream);
+    }
+
+    private void writeZip(List<Integer> ids, OutputStream outputStream) throws IOException {
+        Deque<PendingInvoice> pending = new ArrayDeque<>();
+        StringBuilder errors = new StringBuilder();
+        try (ZipOutputStream zip = new ZipOutputStream(outputStream)) {
+            for (int id : ids) {
+                if (pending.size() >= maxInFlight) {
+                    writeEntry(zip, pending.removeFirst(), errors);
+                }
+                pending.addLast(new PendingInvoice(id, submit(id)));
+            }
+            while (!pending.isEmpty()) {
+                writeEntry(zip, pending.removeFirst(), errors);
+            }
+            if (!errors.isEmpty()) {
+                zip.putNextEntry(new ZipEntry("errors.txt"));
+                zip.write(errors.toString().getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        } finally {
+            for (PendingInvoice invoice : pending) {
+                invoice.pdf().cancel(true);
+                inFlight.release();
+            }
+        }
+    }
+
+    /**
+     * Submits the render of one invoice, waiting while the shared in-flight limit is reached and, up to the queue
+     * timeout, while the render queue is full.
+     *
+     * The in-flight permit is taken here and given back when the invoice is written or cancelled.
+     *
+     * @param id the ID of the purchase
+     * @return a {@link Future} completing with the PDF content, or failing if the render could not be queued
+     * @throws InterruptedIOException if the export is interrupted while waiting
+     */
+    private Future<byte[]> submit(int id) throws InterruptedIOException {
+        try {
+            inFlight.acquire();
+            try {
+                return renderPool.submit(() -> invoiceService.getPdfBytes(id), queueTimeout);
+            } catch (RejectedExecutionException e) {
+                return CompletableFuture.failedFuture(e);
+            } catch (InterruptedException e) {
+                inFlight.release();
+                throw e;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Invoice export interrupted");
+        }
+    }
+
+    private void writeEntry(ZipOutputStream zip, PendingInvoice invoice, StringBuilder errors) throws IOException {
+        byte[] pdf;
+        try {
+            pdf = invoice.pdf().get();
+        } catch (InterruptedException e) {
+            invoice.pdf().cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Invoice export interrupted");
+        } catch (ExecutionException e) {
+            errors.append("Invoice ").append(invoice.id()).append(": ").append(e.getCause()).append('\n');
+            return;
+        } finally {
+            inFlight.release();
+        }
+        zip.putNextEntry(new ZipEntry("invoice-" + invoice.id() + ".pdf"));
+        zip.write(pdf);
+        zip.closeEntry();
+    }
+
+    private record PendingInvoice(int id, Future<byte[]> pdf) {
+    }
+}
@@ -0,0 +1,177 @@
+package com.viser.StockTrade.service;
+
+import com.viser.StockTrade.dto.RenderJobDto;
+import com.viser.StockTrade.enums.RenderJobStatus;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import net.sf.jasperreports.engine.JRException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+@Service
+@RequiredArgsConstructor
+public class InvoiceRenderJobService {
+    private final InvoiceService invoiceService;
+    private final InvoiceRenderPool renderPool;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, RenderJob> jobs = new ConcurrentHashMap<>();
+
+    @Value("${myapp.custom.invoice.render.job-ttl:10m}")
+    private Duration jobTtl;
+
+    @Value("${myapp.custom.invoice.prerender.max-queue-depth:50}")
+    private int prerenderMaxQueueDepth;
+
+    /**
+     * Submits a background render job for the invoice of the given purchase.
+     *
+     * The invoice is rendered on the bounded {@link InvoiceRenderPool} into the invoice cache, so the request
+     * thread is released immediately. The time the job waits in the queue and the time spent rendering are
+     * recorded as the {@code invoice.render.wait} and {@code invoice.render.time} metrics.
+     *
+     * @param purchaseId the ID of the purchase
+     * @return the submitted job
+     * @throws RejectedExecutionException if the render queue is full
+     */
+    public RenderJobDto submit(int purchaseId) {
+        RenderJob job = new RenderJob(UUID.randomUUID().toString(), purchaseId, System.nanoTime());
+        jobs.put(job.id, job);
+        try {
+            renderPool.submit(() -> render(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            meterRegistry.counter("invoice.render.rejected").increment();
+            throw e;
+        }
+        return toDto(job);
+    }
+
+    /**
+     * Renders the invoice of the given purchase into the invoice cache in the background, if the pool has room.
+     *
+     * Pre-rendering is only an optimization, so it is skipped when the render queue already holds the configured
+     * number of tasks. This keeps room in the queue for the render jobs users are waiting for.
+     *
+     * @param purchaseId the ID of the purchase
+     * @return {@code true} if the render was queued, {@code false} if it was skipped
+     */
+    public boolean prerender(int purchaseId) {
+        if (renderPool.getQueueDepth() >= prerenderMaxQueueDepth) {
+            meterRegistry.counter("invoice.prerender.skipped").increment();
+            return false;
+        }
+        try {
+            renderPool.submit(() -> invoiceService.getPdfFile(purchaseId));
+        } catch (RejectedExecutionException e) {
+            meterRegistry.counter("invoice.prerender.skipped").increment();
+            return false;
+        }
+        meterRegistry.counter("invoice.prerender.submitted").increment();
+        return true;
+    }
+
+    /**
+     * Retrieves the current state of a render job.
+     *
+     * @param jobId the ID of the job
+     * @return the job, or {@code null} if no such job exists or it has expired
+     */
+    public RenderJobDto getJob(String jobId) {
+        RenderJob job = jobs.get(jobId);
+        return job != null ? toDto(job) : null;
+    }
+
+    /**
+     * Returns a future that completes with the state of the job once it has finished rendering.
+     *
+     * @param jobId the ID of the job
+     * @return a {@link CompletableFuture} of the finished job, or {@code null} if no such job exists
+     */
+    public CompletableFuture<RenderJobDto> whenFinished(String jobId) {
+        RenderJob job = jobs.get(jobId);
+        return job != null ? job.finished.thenApply(ignored -> toDto(job)) : null;
+    }
+
+    /**
+     * Retrieves the disk file of the PDF rendered by a finished job.
+     *
+     * @param jobId the ID of the job
+     * @return the path of the PDF file, or {@code null} if no such job exists or it has not finished successfully
+     * @throws JRException if the invoice is no longer cached and cannot be rendered again
+     */
+    public Path getPdfFile(String jobId) throws JRException {
+        RenderJob job = jobs.get(jobId);
+        if (job == null || job.status != RenderJobStatus.DONE) {
+            return null;
+        }
+        return invoiceService.getPdfFile(job.purchaseId);
+    }
+
+    /**
+     * Retrieves the strong ETag of the PDF rendered by a job.
+     *
+     * @param jobId the ID of the job
+     * @return the quoted ETag, or {@code null} if no such job exists
+     * @throws JRException if the invoice layout cannot be loaded
+     */
+    public String getETag(String jobId) throws JRException {
+        RenderJob job = jobs.get(jobId);
+        return job != null ? invoiceService.getETag(job.purchaseId, invoiceService.getRenderer(null)) : null;
+    }
+
+    /**
+     * Removes finished jobs that are older than the configured time to live.
+     */
+    @Scheduled(fixedDelayString = "${myapp.custom.invoice.render.job-cleanup-interval:60000}")
+    public void removeExpiredJobs() {
+        long now = System.nanoTime();
+        jobs.values().removeIf(job -> job.finished.isDone() && now - job.submittedAt > jobTtl.toNanos());
+    }
+
+    private Void render(RenderJob job) {
+        long startedAt = System.nanoTime();
+        meterRegistry.timer("invoice.render.wait").record(startedAt - job.submittedAt, TimeUnit.NANOSECONDS);
+        job.status = RenderJobStatus.RUNNING;
+        try {
+            invoiceService.getPdfFile(job.purchaseId);
+            job.status = RenderJobStatus.DONE;
+        } catch (Exception e) {
+            job.error = e.getMessage();
+            job.status = RenderJobStatus.FAILED;
+        } finally {
+            meterRegistry.timer("invoice.render.time").record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            job.finished.complete(null);
+        }
+        return null;
+    }
+
+    private RenderJobDto toDto(RenderJob job) {
+        String downloadUrl = job.status == RenderJobStatus.DONE ? "/invoices/jobs/" + job.id + "/pdf" : null;
+        return new RenderJobDto(job.id, job.purchaseId, job.status, job.error, downloadUrl);
+    }
+
+    private static class RenderJob {
+        private final String id;
+        private final int purchaseId;
+        private final long submittedAt;
+        private final CompletableFuture<Void> finished = new CompletableFuture<>();
+        private volatile RenderJobStatus status = RenderJobStatus.QUEUED;
+        private volatile String error;
+
+        RenderJob(String id, int purchaseId, long submittedAt) {
+            this.id = id;
+            this.purchaseId = purchaseId;
+            this.submittedAt = submittedAt;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.viser.StockTrade.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.*;
+
+@Service
+@RequiredArgsConstructor
+public class InvoiceRenderPool {
+    private final MeterRegistry meterRegistry;
+    private ThreadPoolExecutor executor;
+    private Semaphore queueSlots;
+
+    @Value("${myapp.custom.invoice.render.threads:2}")
+    private int threads;
+
+    @Value("${myapp.custom.invoice.render.queue-capacity:100}")
+    private int queueCapacity;
+
+    /**
+     * Creates the bounded thread pool used for rendering invoices in the background.
+     *
+     * The pool has a fixed number of threads and a bounded queue, so background rendering can never use more
+     * than the configured number of threads and starve the threads that serve interactive requests. The queue
+     * depth and the number of active renders are exposed as metrics.
+     *
+     * A task takes a queue slot when it is submitted and gives it back when a thread starts it, even if it was
+     * cancelled in the meantime, so submitters can wait for a free slot instead of being rejected.
+     */
+    @PostConstruct
+    public void init() {
+        queueSlots = new Semaphore(queueCapacity);
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("invoice-render-"),
+                new ThreadPoolExecutor.AbortPolicy()) {
+            @Override
+            protected void beforeExecute(Thread thread, Runnable task) {
+                queueSlots.release();
+            }
+        };
+        Gauge.builder("invoice.render.queue.depth", executor, pool -> pool.getQueue().size()).register(meterRegistry);
+        Gauge.builder("invoice.render.active", executor, ThreadPoolExecutor::getActiveCount).register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Returns the number of render tasks waiting for a free thread.
+     *
+     * @return the current queue depth
+     */
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * Submits a render task to the pool.
+     *
+     * @param task the render task
+     * @param <T> the type of the render result
+     * @return a {@link Future} that completes with the render result
+     * @throws RejectedExecutionException if the render queue is full
+     */
+    public <T> Future<T> submit(Callable<T> task) {
+        if (!queueSlots.tryAcquire()) {
+            throw new RejectedExecutionException("The invoice render queue is full");
+        }
+        return execute(task);
+    }
+
+    /**
+     * Submits a render task to the pool, waiting for a free place in the queue if it is full.
+     *
+     * @param task the render task
+     * @param timeout the maximum time to wait for a free place in the queue
+     * @param <T> the type of the render result
+     * @return a {@link Future} that completes with the render result
+     * @throws RejectedExecutionException if the render queue is still full after the timeout
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public <T> Future<T> submit(Callable<T> task, Duration timeout) throws InterruptedException {
+        if (!queueSlots.tryAcquire(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+            throw new RejectedExecutionException("The invoice render queue is full");
+        }
+        return execute(task);
+    }
+
+    private <T> Future<T> execute(Callable<T> task) {
+        try {
+            return executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            queueSlots.release();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.viser.StockTrade.service;
+
+import com.viser.StockTrade.dto.InvoiceDto;
+import com.viser.StockTrade.entity.Purchase;
+import com.viser.StockTrade.entity.Supplier;
+import net.sf.jasperreports.engine.JRException;
+import org.springframework.http.MediaType;
+
+import java.io.OutputStream;
+import java.math.RoundingMode;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Renders the invoice of a purchase into a document.
+ */
+public interface InvoiceRenderer {
+
+    /**
+     * Returns the name used to select this renderer in the configuration or in a request.
+     *
+     * @return the name of the renderer
+     */
+    String getName();
+
+    /**
+     * Returns the version of the invoice layout produced by this renderer.
+     *
+     * The version is part of the invoice cache key, so it must change whenever the rendered output changes.
+     *
+     * @return the layout version
+     * @throws JRException if the layout cannot be loaded
+     */
+    String getVersion() throws JRException;
+
+    /**
+     * Returns the content type of the rendered document.
+     *
+     * @return the {@link MediaType} of the rendered document
+     */
+    MediaType getContentType();
+
+    /**
+     * Renders the invoice of a purchase to the given output stream.
+     *
+     * @param purchase the {@link Purchase} to be printed on the invoice
+     * @param supplier the {@link Supplier} of the purchase
+     * @param lines the invoice lines of the purchase
+     * @param outputStream the stream the document is written to
+     * @throws JRException if there is an error while rendering the invoice
+     */
+    void render(Purchase purchase, Supplier supplier, List<InvoiceDto> lines, OutputStream outputStream) throws JRException;
+
+    /**
+     * Formats an amount of money the way every invoice and statement layout prints it, e.g. {@code 1,234.50 €}.
+     *
+     * The amount is rounded half up to cents, so binary fractions of the stored doubles never show up on a document,
+     * and switching the renderer does not change the printed amounts.
+     *
+     * @param amount the amount in euros
+     * @return the formatted amount with the currency sign
+     */
+    static String formatAmount(double amount) {
+        DecimalFormat format = new DecimalFormat("#,##0.00", DecimalFormatSymbols.getInstance(Locale.US));
+        format.setRoundingMode(RoundingMode.HALF_UP);
+        return format.format(amount) + " €";
+    }
+}
@@ -4,18 +4,18 @@ import com.viser.StockTrade.dto.InvoiceDto;
 import com.viser.StockTrade.entity.Purchase;
 import com.viser.StockTrade.entity.PurchaseItem;
 import com.viser.StockTrade.entity.Supplier;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
-import net.sf.jasperreports.engine.*;
-import net.sf.jasperreports.engine.data.JRBeanCollectionDataSource;
-import net.sf.jasperreports.engine.design.JasperDesign;
-import net.sf.jasperreports.engine.xml.JRXmlLoader;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
+import net.sf.jasperreports.engine.JRException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 
 import java.io.ByteArrayOutputStream;
-import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -26,49 +26,170 @@ import java.util.Map;
 public class InvoiceService {
     private final PurchaseService purchaseService;
     private final SupplierService supplierService;
+    private final List<InvoiceRenderer> invoiceRenderers;
+    private final InvoiceCacheService invoiceCacheService;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, InvoiceRenderer> renderers = new HashMap<>();
+
+    @Value("${myapp.custom.invoice.renderer:jasper}")
+    private String defaultRendererName;
+
+    /**
+     * Registers the available invoice renderers by name and checks the configured default renderer.
+     *
+     * The default renderer is also used for bulk exports and render jobs, which always deliver PDF files,
+     * so it must produce PDF.
+     */
+    @PostConstruct
+    public void registerRenderers() {
+        for (InvoiceRenderer renderer : invoiceRenderers) {
+            renderers.put(renderer.getName(), renderer);
+        }
+        InvoiceRenderer defaultRenderer = renderers.get(defaultRendererName);
+        if (defaultRenderer == null || !MediaType.APPLICATION_PDF.equals(defaultRenderer.getContentType())) {
+            throw new IllegalStateException("Invoice renderer " + defaultRendererName + " does not exist or does not produce PDF.");
+        }
+    }
 
     /**
-     * Generates a PDF invoice for a given purchase and returns it in the response.
+     * Retrieves the invoice renderer with the given name.
      *
-     * This method retrieves the details of a purchase, including the supplier information and items,
-     * and uses JasperReports to generate a PDF invoice. The generated PDF is returned as a byte array
-     * in the response entity with appropriate headers to indicate it is a PDF file.
+     * @param name the name of the renderer, or {@code null} for the configured default renderer
+     * @return the {@link InvoiceRenderer}, or {@code null} if no renderer with that name exists
+     */
+    public InvoiceRenderer getRenderer(String name) {
+        return renderers.get(name != null ? name : defaultRendererName);
+    }
+
+    /**
+     * Returns the disk file of the invoice for a given purchase with the default renderer.
+     *
+     * @param id the ID of the purchase
+     * @return the path of the cached PDF file
+     * @throws JRException if there is an error while generating the PDF report
+     */
+    public Path getPdfFile(int id) throws JRException {
+        return getInvoiceFile(id, getRenderer(null));
+    }
+
+    /**
+     * Returns the disk file of the invoice for a given purchase, rendering it straight to disk on a cache miss.
+     *
+     * This method first looks the invoice up in the disk tier of the {@link InvoiceCacheService}, under a key that
+     * includes the current revision of the supplier. Only on a cache miss are the details of the purchase, including the supplier information and items, retrieved and passed to
+     * the renderer, which writes the invoice directly into the cache file. The invoice is never collected into a
+     * byte array, so it can be sent to the client straight from disk.
      *
      * @param id the ID of the purchase for which the invoice is to be generated (an {@link Integer})
-     * @return a {@link ResponseEntity} containing the PDF file as a byte array, with headers set for
-     *         inline display and content type as PDF
+     * @param renderer the {@link InvoiceRenderer} used to render the invoice
+     * @return the path of the cached invoice file
+     * @throws JRException if there is an error while generating the invoice
+     */
+    public Path getInvoiceFile(int id, InvoiceRenderer renderer) throws JRException {
+        String key = getKey(id, renderer);
+        Path file = invoiceCacheService.getFile(key);
+        if (file == null) {
+            Purchase purchase = getPurchase(id);
+            Supplier supplier = getSupplier(purchase);
+            file = invoiceCacheService.write(key, outputStream -> render(purchase, supplier, renderer, outputStream));
+        }
+        return file;
+    }
+
+    /**
+     * Returns the strong ETag of the invoice for a given purchase.
+     *
+     * The ETag is derived from the cache key, so it changes whenever the supplier printed on the invoice is edited.
+     * It costs one query for the supplier revision, but neither the purchase items nor the invoice are loaded.
+     *
+     * @param id the ID of the purchase
+     * @param renderer the {@link InvoiceRenderer} used to render the invoice
+     * @return the quoted ETag of the invoice, or {@code null} if no such purchase exists
+     * @throws JRException if the invoice layout cannot be loaded
+     */
+    public String getETag(int id, InvoiceRenderer renderer) throws JRException {
+        String supplierRevision = purchaseService.getSupplierRevision(id);
+        return supplierRevision != null ? invoiceCacheService.getETag(invoiceCacheService.getKey(id, supplierRevision, renderer)) : null;
+    }
+
+    /**
+     * Returns the PDF invoice for a given purchase with the default renderer, rendering and caching it on a cache miss.
+     *
+     * The purchase is loaded together with its items, so this method can safely be called from background threads.
+     *
+     * @param id the ID of the purchase
+     * @return the PDF content
      * @throws JRException if there is an error while generating the PDF report
      */
-    public ResponseEntity<byte[]> getPdf(int id) throws JRException {
-        Purchase purchase = purchaseService.getById(id);
-        Supplier supplier = supplierService.getByName(purchase.getSupplierName());
-        List<InvoiceDto> invoiceDtos = getInvoiceList(purchase);
-        JRBeanCollectionDataSource itemsJRBean = new JRBeanCollectionDataSource(invoiceDtos);
-        double totalAmountPrimitive = purchase.getTotalAmount();
-        Map<String, Object> parameters = new HashMap<>();
-        parameters.put("CollectionData", itemsJRBean);
-        parameters.put("date", purchase.getDate());
-        parameters.put("id", purchase.getId());
-        parameters.put("totalAmount", totalAmountPrimitive);
-        parameters.put("supplier", purchase.getSupplierName());
-        parameters.put("supplierAddress", supplier.getAddress());
-        parameters.put("supplierPhone", supplier.getPhone());
-        parameters.put("supplierEmail", supplier.getEmail());
-        InputStream input = getClass().getResourceAsStream("/invoice.jrxml");
-
-        JasperDesign jasperDesign = JRXmlLoader.load(input);
-        JasperReport jasperReport = JasperCompileManager.compileReport(jasperDesign);
-        JasperPrint jasperPrint = JasperFillManager.fillReport(jasperReport, parameters, new JREmptyDataSource());
+    public byte[] getPdfBytes(int id) throws JRException {
+        InvoiceRenderer renderer = getRenderer(null);
+        return getInvoiceBytes(getKey(id, renderer), id, renderer);
+    }
+
+    private byte[] getInvoiceBytes(String key, int id, InvoiceRenderer renderer) throws JRException {
+        byte[] invoiceBytes = invoiceCacheService.get(key);
+        if (invoiceBytes == null) {
+            invoiceBytes = render(id, renderer);
+            invoiceCacheService.put(key, invoiceBytes);
+        }
+        return invoiceBytes;
+    }
+
+    /**
+     * Renders the invoice of a given purchase with the given renderer.
+     *
+     * The total time spent rendering is recorded as the {@code invoice.render} metric tagged with the renderer.
+     *
+     * @param id the ID of the purchase
+     * @param renderer the {@link InvoiceRenderer} used to render the invoice
+     * @return the rendered invoice
+     * @throws JRException if there is an error while generating the invoice
+     */
+    private byte[] render(int id, InvoiceRenderer renderer) throws JRException {
+        Purchase purchase = getPurchase(id);
+        Supplier supplier = getSupplier(purchase);
 
         ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-        JasperExportManager.exportReportToPdfStream(jasperPrint, byteArrayOutputStream);
-        byte[] pdfBytes = byteArrayOutputStream.toByteArray();
+        render(purchase, supplier, renderer, byteArrayOutputStream);
+        return byteArrayOutputStream.toByteArray();
+    }
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.set(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=invoice.pdf");
-        headers.setContentType(org.springframework.http.MediaType.APPLICATION_PDF);
+    private void render(Purchase purchase, Supplier supplier, InvoiceRenderer renderer, OutputStream outputStream) throws JRException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            renderer.render(purchase, supplier, getInvoiceList(purchase), outputStream);
+        } finally {
+            sample.stop(meterRegistry.timer("invoice.render", "renderer", renderer.getName()));
+        }
+    }
 
-        return new ResponseEntity<>(pdfBytes, headers, HttpStatus.OK);
+    private String getKey(int id, InvoiceRenderer renderer) throws JRException {
+        String supplierRevision = purchaseService.getSupplierRevision(id);
+        if (supplierRevision == null) {
+            throw new JRException("Could not find any purchase with ID " + id);
+        }
+        return invoiceCacheService.getKey(id, supplierRevision, renderer);
+    }
+
+    private Purchase getPurchase(int id) throws JRException {
+        Purchase purchase = purchaseService.getByIdWithItems(id);
+        if (purchase == null) {
+            throw new JRException("Could not find any purchase with ID " + id);
+        }
+        return purchase;
+    }
+
+    /**
+     * Retrieves the supplier of a purchase by its ID, or by its name for purchases without a resolved supplier ID.
+     *
+     * @param purchase the purchase
+     * @return the {@link Supplier} of the purchase, or {@code null} if it no longer exists
+     */
+    private Supplier getSupplier(Purchase purchase) {
+        if (purchase.getSupplierId() != null) {
+            return supplierService.getById(purchase.getSupplierId());
+        }
+        return supplierService.getByName(purchase.getSupplierName());
     }
 
     /**
@@ -81,7 +202,7 @@ public class InvoiceService {
      * @param purchase the {@link Purchase} object containing the purchase items to be included in the invoice
      * @return a {@link List} of {@link InvoiceDto} objects representing the items in the invoice
      */
-    private List<InvoiceDto> getInvoiceList(Purchase purchase) {
+    public static List<InvoiceDto> getInvoiceList(Purchase purchase) {
         List<InvoiceDto> invoiceDtos = new ArrayList<>();
         for (PurchaseItem purchaseItem : purchase.getPurchaseItems()) {
             InvoiceDto invoiceDto = new InvoiceDto();
@@ -0,0 +1,96 @@
+package com.viser.StockTrade.service;
+
+import com.viser.StockTrade.dto.InvoiceDto;
+import com.viser.StockTrade.entity.Purchase;
+import com.viser.StockTrade.entity.Supplier;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import net.sf.jasperreports.engine.*;
+import net.sf.jasperreports.engine.data.JRBeanCollectionDataSource;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+@RequiredArgsConstructor
+public class JasperInvoiceRenderer implements InvoiceRenderer {
+    private final ReportTemplateRegistry templateRegistry;
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public String getName() {
+        return "jasper";
+    }
+
+    @Override
+    public String getVersion() throws JRException {
+        return templateRegistry.getVersion(ReportTemplateRegistry.INVOICE_TEMPLATE).substring(0, 16);
+    }
+
+    @Override
+    public MediaType getContentType() {
+        return MediaType.APPLICATION_PDF;
+    }
+
+    @Override
+    public void render(Purchase purchase, Supplier supplier, List<InvoiceDto> lines, OutputStream outputStream) throws JRException {
+        exportPdf(fillInvoice(purchase, supplier, lines), outputStream);
+    }
+
+    /**
+     * Fills the cached invoice template with the data of the given purchase.
+     *
+     * The compiled template is taken from the {@link ReportTemplateRegistry}, so the template is not compiled
+     * again for every invoice. The time spent filling the report is recorded as the {@code invoice.fill} metric.
+     *
+     * @param purchase the {@link Purchase} to be printed on the invoice
+     * @param supplier the {@link Supplier} of the purchase
+     * @param lines the invoice lines of the purchase
+     * @return the filled {@link JasperPrint}
+     * @throws JRException if there is an error while filling the report
+     */
+    public JasperPrint fillInvoice(Purchase purchase, Supplier supplier, List<InvoiceDto> lines) throws JRException {
+        JRBeanCollectionDataSource itemsJRBean = new JRBeanCollectionDataSource(lines);
+        double totalAmountPrimitive = purchase.getTotalAmount();
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("CollectionData", itemsJRBean);
+        parameters.put("date", purchase.getDate());
+        parameters.put("id", purchase.getId());
+        parameters.put("totalAmount", totalAmountPrimitive);
+        parameters.put("supplier", purchase.getSupplierName());
+        parameters.put("supplierAddress", supplier.getAddress());
+        parameters.put("supplierPhone", supplier.getPhone());
+        parameters.put("supplierEmail", supplier.getEmail());
+        JasperReport jasperReport = templateRegistry.getReport(ReportTemplateRegistry.INVOICE_TEMPLATE);
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            return JasperFillManager.fillReport(jasperReport, parameters, new JREmptyDataSource());
+        } finally {
+            sample.stop(meterRegistry.timer("invoice.fill"));
+        }
+    }
+
+    /**
+     * Exports a filled invoice as PDF to the given output stream.
+     *
+     * The time spent exporting the report is recorded as the {@code invoice.export} metric.
+     *
+     * @param jasperPrint the filled invoice
+     * @param outputStream the stream the PDF is written to
+     * @throws JRException if there is an error while exporting the report
+     */
+    public void exportPdf(JasperPrint jasperPrint, OutputStream outputStream) throws JRException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            JasperExportManager.exportReportToPdfStream(jasperPrint, outputStream);
+        } finally {
+            sample.stop(meterRegistry.timer("invoice.export"));
+        }
+    }
+}
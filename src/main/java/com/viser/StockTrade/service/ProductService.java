@@ -4,15 +4,24 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.viser.StockTrade.dto.ProductDto;
 import com.viser.StockTrade.entity.Product;
+import com.viser.StockTrade.enums.StockMovementType;
 import com.viser.StockTrade.exceptions.NameExistException;
 import com.viser.StockTrade.exceptions.NotFoundException;
 import com.viser.StockTrade.exceptions.ValidationException;
 import com.viser.StockTrade.repository.ProductRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.validation.BindingResult;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static com.viser.StockTrade.exceptions.ExceptionHelper.*;
 
@@ -22,6 +31,10 @@ public class ProductService {
     private final ProductRepository repo;
     private final CategoryService categoryService;
     private final SupplierService supplierService;
+    private final StockLedgerService stockLedgerService;
+    private final ConcurrencyRetryService concurrencyRetryService;
+    private final StockWriteBehindService stockWriteBehindService;
+    private final PlatformTransactionManager transactionManager;
 
     /**
      * Saves a {@link Product} object to the repository.
@@ -51,26 +64,43 @@ public class ProductService {
      * Retrieves all {@link Product} entities from the repository.
      *
      * This method fetches and returns a list of all {@link Product} entities stored in the repository.
-     * The list may be empty if no products are found.
+     * The list may be empty if no products are found. Stock increments that are still pending in the
+     * {@link StockWriteBehindService} are included in the stock quantities.
      *
      * @return a {@link List} of {@link Product} entities. If no products are present, an empty list is returned.
      */
     public List<Product> getAll() {
-        return repo.findAll();
+        return stockWriteBehindService.withPendingStock(repo::findAll);
     }
 
     /**
      * Retrieves a {@link Product} entity by its ID.
      *
      * This method searches for a {@link Product} in the repository using the provided ID. If a product with the given ID exists, it is returned.
-     * If no product is found with the specified ID, this method returns {@code null}.
+     * If no product is found with the specified ID, this method returns {@code null}. Stock increments that are still
+     * pending in the {@link StockWriteBehindService} are included in the stock quantity.
      *
      * @param id the ID of the product to retrieve.
      * @return the {@link Product} entity with the specified ID, or {@code null} if no such product exists.
      * @throws IllegalArgumentException if the provided ID is negative.
      */
     public Product getById(int id) {
-        return repo.findById(id);
+        return stockWriteBehindService.withPendingStock(() -> Stream.ofNullable(repo.findById(id)).toList())
+                .stream().findFirst().orElse(null);
+    }
+
+    /**
+     * Retrieves a {@link Product} entity by its ID for editing.
+     *
+     * All pending stock increments are written to the database first, so the version of the returned product is not
+     * outdated by the next flush, which would make the edit fail with a version conflict.
+     *
+     * @param id the ID of the product to retrieve.
+     * @return the {@link Product} entity with the specified ID, or {@code null} if no such product exists.
+     */
+    public Product getByIdForEdit(int id) {
+        stockWriteBehindService.flush();
+        return getById(id);
     }
 
     /**
@@ -86,6 +116,40 @@ public class ProductService {
         return repo.findByName(name);
     }
 
+    /**
+     * Retrieves all {@link Product} entities with the given names in a single query.
+     *
+     * The category and supplier of every product are fetched in the same query, so reading them does not
+     * trigger further queries. Names without a matching product are not contained in the result.
+     *
+     * @param names the names of the products to retrieve.
+     * @return a {@link Map} of the found {@link Product} entities keyed by their name.
+     */
+    public Map<String, Product> getByNames(Collection<String> names) {
+        if (names.isEmpty()) {
+            return Map.of();
+        }
+        return repo.findByNameIn(names).stream().collect(Collectors.toMap(Product::getName, Function.identity()));
+    }
+
+    /**
+     * Atomically adds the given quantities to the stock quantity of the products.
+     *
+     * All increments are sent to the database as one batch of {@code stock_quantity = stock_quantity + ?}
+     * updates, so concurrent purchases of the same product never lose an update. If write-behind is enabled,
+     * the increments are instead handed to the {@link StockWriteBehindService} when the current transaction commits,
+     * which coalesces them with the increments of other purchases.
+     *
+     * @param quantities the quantities to be added, keyed by product ID
+     */
+    public void incrementStockQuantities(Map<Integer, Integer> quantities) {
+        if (stockWriteBehindService.isEnabled()) {
+            stockWriteBehindService.add(quantities);
+        } else {
+            repo.incrementStockQuantities(quantities);
+        }
+    }
+
     /**
      * Checks if a {@link Product} exists in the repository with the given name.
      *
@@ -128,7 +192,8 @@ public class ProductService {
      * Adds a new {@link Product} to the repository based on the provided {@link ProductDto}.
      *
      * This method validates the input data, checks if a product with the given name already exists,
-     * and then creates and saves a new {@link Product} entity if all conditions are met.
+     * and then creates and saves a new {@link Product} entity if all conditions are met. The initial stock
+     * quantity of the product is recorded as its opening stock movement.
      *
      * @param productDto the data transfer object containing the product information to be added.
      * @param result     the binding result that contains validation errors, if any.
@@ -141,7 +206,10 @@ public class ProductService {
         throwNameExistException(existByName(productDto.getName()), "A product with this name already exists. Please choose a different name.", "/add-product-page");
         Product product = new Product();
         updateProductFields(product, productDto);
-        save(product);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            save(product);
+            stockLedgerService.recordAdjustment(product.getId(), StockMovementType.OPENING, product.getStockQuantity());
+        });
     }
 
     /**
@@ -164,25 +232,55 @@ public class ProductService {
      *
      * This method performs several operations:
      * 1. Validates the provided data and throws a {@link ValidationException} if there are errors.
-     * 2. Retrieves the {@link Product} by its ID. Throws a {@link NotFoundException} if no product with the specified ID is found.
+     * 2. Retrieves the {@link Product} by its ID, after writing pending stock increments. Throws a {@link NotFoundException} if no product with the specified ID is found.
      * 3. Checks if the new name for the product is already taken and throws a {@link NameExistException} if it is.
-     * 4. Updates the product's fields with the data from the {@link ProductDto} and saves the updated product to the repository.
+     * 4. Checks that the product has not been changed since the edit form was loaded, using the version of the form.
+     * 5. Updates the product's fields with the data from the {@link ProductDto} and saves the updated product to the repository.
+     * 6. Records a change of the stock quantity as an adjustment in the stock ledger.
+     *
+     * The product is versioned, and every purchase of the product increments its version, so an edit based on an
+     * outdated stock quantity or on other outdated fields is rejected instead of silently overwriting the concurrent
+     * change. Such conflicts are not retried, because retrying would overwrite the concurrent change after all.
      *
      * @param id the ID of the {@link Product} to be edited.
      * @param productDto the data transfer object containing updated product details.
      * @param result the {@link BindingResult} that contains validation errors.
      *
-     * @throws ValidationException if validation errors are found in the provided data.
+     * @throws ValidationException if validation errors are found in the provided data, or if the product was changed
+     *                             by someone else in the meantime.
      * @throws NotFoundException if no product with the specified ID is found in the repository.
      * @throws NameExistException if a product with the new name already exists in the repository.
      */
     public void edit(int id, ProductDto productDto, BindingResult result) throws ValidationException, NotFoundException, NameExistException {
         throwValidationException(result, "/edit-product-page/" + id);
-        Product product = getById(id);
+        Product product = getByIdForEdit(id);
         throwNotFoundException(product, "Could not find any product with ID" + id, "/edit-product-page/" + id);
         throwNameExistException(isProductNameChangedAndExists(product, productDto), "A product with this name already exists. Please choose a different name.", "/edit-product-page/" + id);
+        if (productDto.getVersion() != null && productDto.getVersion() != product.getVersion()) {
+            throw versionConflict(product, "/edit-product-page/" + id);
+        }
+        int previousStockQuantity = product.getStockQuantity();
         updateProductFields(product, productDto);
-        save(product);
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                save(product);
+                stockLedgerService.recordAdjustment(id, StockMovementType.ADJUSTMENT, product.getStockQuantity() - previousStockQuantity);
+            });
+        } catch (OptimisticLockingFailureException e) {
+            throw versionConflict(product, "/edit-product-page/" + id);
+        }
+    }
+
+    /**
+     * Counts a rejected edit of a product and creates the {@link ValidationException} reported to the user.
+     *
+     * @param product the product that was changed by someone else
+     * @param redirectUrl the URL to redirect to
+     * @return the {@link ValidationException} to be thrown
+     */
+    private ValidationException versionConflict(Product product, String redirectUrl) {
+        concurrencyRetryService.recordConflict("product", product.getId(), product.getName());
+        return new ValidationException(VERSION_CONFLICT_MESSAGE, redirectUrl);
     }
 
     /**
@@ -0,0 +1,85 @@
+package com.viser.StockTrade.service;
+
+import com.viser.StockTrade.repository.PurchaseRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class PurchaseArchiveService {
+    private static final List<String> PARTITIONED_TABLES = List.of("purchase", "purchase_item");
+
+    private final PurchaseRepository purchaseRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${myapp.custom.purchase.archive.horizon-months:36}")
+    private int horizonMonths;
+
+    @Value("${myapp.custom.purchase.archive.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${myapp.custom.purchase.partition.years-ahead:2}")
+    private int yearsAhead;
+
+    /**
+     * Maintains the partitions of the purchase tables and archives purchases older than the configured horizon.
+     */
+    @Scheduled(cron = "${myapp.custom.purchase.archive.cron:0 30 2 * * *}")
+    public void maintain() {
+        createPartitions();
+        archive();
+    }
+
+    /**
+     * Makes sure the partitioned purchase tables have a yearly partition for every year up to the configured number
+     * of years ahead.
+     *
+     * The partitions are split off the open-ended {@code p_max} partition before any purchase of that year exists,
+     * so no rows have to be moved. Tables that are not partitioned are skipped.
+     */
+    public void createPartitions() {
+        int lastYear = LocalDate.now().getYear() + yearsAhead;
+        for (String table : PARTITIONED_TABLES) {
+            List<Integer> years = purchaseRepository.findPartitionYears(table);
+            if (years.isEmpty()) {
+                continue;
+            }
+            for (int year = Collections.max(years) + 1; year <= lastYear; year++) {
+                purchaseRepository.addYearPartition(table, year);
+            }
+        }
+    }
+
+    /**
+     * Moves all purchases dated before the archive horizon, with their items, to the archive tables.
+     *
+     * The horizon is counted in whole months back from the first day of the current month. Purchases are moved in
+     * batches, each in its own transaction, so the job never holds many locks at once. Archived purchases no longer
+     * appear in lists, searches and charts, but their invoices can still be viewed. The number of archived purchases
+     * is counted in {@code purchase.archived}.
+     *
+     * @return the number of archived purchases
+     */
+    public int archive() {
+        LocalDate cutoff = LocalDate.now().withDayOfMonth(1).minusMonths(horizonMonths);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        int archived = 0;
+        int moved;
+        do {
+            moved = transactionTemplate.execute(status -> purchaseRepository.archiveBefore(cutoff, batchSize));
+            archived += moved;
+        } while (moved == batchSize);
+        meterRegistry.counter("purchase.archived").increment(archived);
+        return archived;
+    }
+}
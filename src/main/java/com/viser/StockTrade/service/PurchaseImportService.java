@@ -0,0 +1,307 @@
+package com.viser.StockTrade.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.viser.StockTrade.dto.PurchaseDto;
+import com.viser.StockTrade.dto.PurchaseImportErrorDto;
+import com.viser.StockTrade.dto.PurchaseImportReportDto;
+import com.viser.StockTrade.dto.PurchasesItemDto;
+import com.viser.StockTrade.entity.Product;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+public class PurchaseImportService {
+    public static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+    public static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final List<String> CSV_COLUMNS = List.of("supplier", "date", "product", "quantity", "price");
+
+    private final PurchaseService purchaseService;
+    private final ProductService productService;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final PlatformTransactionManager transactionManager;
+    private final EntityManager entityManager;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrencyRetryService concurrencyRetryService;
+    private final PurchaseWriteLimiter purchaseWriteLimiter;
+
+    @Value("${myapp.custom.purchase.import.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${myapp.custom.purchase.import.max-errors:100}")
+    private int maxErrors;
+
+    /**
+     * Checks if purchases can be imported from content of the given type.
+     *
+     * @param contentType the content type of the import file
+     * @return {@code true} for CSV and NDJSON files, {@code false} otherwise
+     */
+    public boolean isSupported(MediaType contentType) {
+        return contentType != null && (TEXT_CSV.includes(contentType) || APPLICATION_NDJSON.includes(contentType));
+    }
+
+    /**
+     * Imports the purchases of a CSV or NDJSON file, committing them in chunks.
+     *
+     * The file is read row by row, so it is never held in memory as a whole. A CSV file starts with a header row
+     * naming the columns {@code supplier}, {@code date}, {@code product}, {@code quantity}, {@code price} and the
+     * optional {@code reference}; consecutive rows with the same reference form one purchase, rows without a
+     * reference are purchases with a single item. Every line of an NDJSON file is one {@link PurchaseDto}.
+     *
+     * Every purchase is validated with the same rules as {@link PurchaseDto}. Valid purchases are collected into
+     * chunks of the configured size; the products of a chunk are resolved with one query and the chunk is saved in
+     * its own transaction. Invalid rows, rows with unknown products and rows of a chunk that cannot be saved are
+     * reported with their line number, and the import continues with the next row. All rejected rows are counted, but
+     * only the errors of the first rows up to the configured maximum are kept, so a mostly invalid file does not fill
+     * the memory and the report with errors. The sustained rate is measured by {@code PurchaseImportBenchmark}.
+     *
+     * @param inputStream the content of the import file
+     * @param contentType the content type of the file, CSV or NDJSON
+     * @return a {@link PurchaseImportReportDto} with the number of imported and rejected purchases, the achieved rate
+     *         and the errors of the first rejected rows
+     * @throws IOException if the file cannot be read
+     */
+    public PurchaseImportReportDto importPurchases(InputStream inputStream, MediaType contentType) throws IOException {
+        long startedAt = System.nanoTime();
+        PurchaseImportReportDto report = new PurchaseImportReportDto();
+        List<ImportRow> chunk = new ArrayList<>(chunkSize);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        if (TEXT_CSV.includes(contentType)) {
+            readCsv(reader, report, chunk);
+        } else {
+            readNdjson(reader, report, chunk);
+        }
+        saveChunk(chunk, report);
+
+        long duration = System.nanoTime() - startedAt;
+        report.setDurationMillis(TimeUnit.NANOSECONDS.toMillis(duration));
+        report.setRowsPerSecond(duration > 0 ? report.getRowsRead() * 1e9 / duration : 0);
+        meterRegistry.timer("purchase.import").record(duration, TimeUnit.NANOSECONDS);
+        meterRegistry.counter("purchase.import.rows").increment(report.getRowsRead());
+        return report;
+    }
+
+    private void readNdjson(BufferedReader reader, PurchaseImportReportDto report, List<ImportRow> chunk) throws IOException {
+        String line;
+        long row = 0;
+        while ((line = reader.readLine()) != null) {
+            row++;
+            if (line.isBlank()) {
+                continue;
+            }
+            report.setRowsRead(report.getRowsRead() + 1);
+            try {
+                PurchaseDto purchase = objectMapper.readValue(line, PurchaseDto.class);
+                if (purchase.getTotalAmount() == 0 && purchase.getPurchaseItems() != null) {
+                    purchase.setTotalAmount(totalAmount(purchase.getPurchaseItems()));
+                }
+                add(new ImportRow(row, purchase), report, chunk);
+            } catch (JsonProcessingException e) {
+                reportError(report, new PurchaseImportErrorDto(row, "Invalid JSON: " + e.getOriginalMessage()));
+            }
+        }
+    }
+
+    private void readCsv(BufferedReader reader, PurchaseImportReportDto report, List<ImportRow> chunk) throws IOException {
+        String header = reader.readLine();
+        if (header == null) {
+            return;
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> names = parseCsvLine(header);
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim().toLowerCase(), i);
+        }
+        for (String column : CSV_COLUMNS) {
+            if (!columns.containsKey(column)) {
+                reportError(report, new PurchaseImportErrorDto(1, "Missing column " + column));
+                return;
+            }
+        }
+        Integer referenceColumn = columns.get("reference");
+
+        String line;
+        long row = 1;
+        ImportRow pending = null;
+        String pendingReference = null;
+        boolean pendingFailed = false;
+        while ((line = reader.readLine()) != null) {
+            row++;
+            if (line.isBlank()) {
+                continue;
+            }
+            report.setRowsRead(report.getRowsRead() + 1);
+            List<String> values = parseCsvLine(line);
+            String reference = referenceColumn != null ? value(values, referenceColumn) : null;
+            if (pending == null || reference == null || reference.isEmpty() || !reference.equals(pendingReference)) {
+                if (pending != null && !pendingFailed) {
+                    add(pending, report, chunk);
+                }
+                PurchaseDto purchase = new PurchaseDto();
+                purchase.setPurchaseItems(new ArrayList<>());
+                pending = new ImportRow(row, purchase);
+                pendingReference = reference;
+                pendingFailed = false;
+            }
+            if (pendingFailed) {
+                continue;
+            }
+            try {
+                PurchaseDto purchase = pending.purchase();
+                purchase.setSupplier(value(values, columns.get("supplier")));
+                purchase.setDate(LocalDate.parse(value(values, columns.get("date"))));
+                PurchasesItemDto item = new PurchasesItemDto(value(values, columns.get("product")),
+                        Integer.parseInt(value(values, columns.get("quantity"))), Double.parseDouble(value(values, columns.get("price"))));
+                purchase.getPurchaseItems().add(item);
+                purchase.setTotalAmount(purchase.getTotalAmount() + item.getQuantity() * item.getPrice());
+            } catch (DateTimeParseException | NumberFormatException e) {
+                reportError(report, new PurchaseImportErrorDto(row, "Invalid value: " + e.getMessage()));
+                pendingFailed = true;
+            }
+        }
+        if (pending != null && !pendingFailed) {
+            add(pending, report, chunk);
+        }
+    }
+
+    /**
+     * Validates a purchase and adds it to the current chunk, saving the chunk once it is full.
+     */
+    private void add(ImportRow row, PurchaseImportReportDto report, List<ImportRow> chunk) {
+        Set<ConstraintViolation<PurchaseDto>> violations = validator.validate(row.purchase());
+        if (!violations.isEmpty()) {
+            String message = violations.stream().map(ConstraintViolation::getMessage).sorted().collect(Collectors.joining("; "));
+            reportError(report, new PurchaseImportErrorDto(row.row(), message));
+            return;
+        }
+        chunk.add(row);
+        if (chunk.size() >= chunkSize) {
+            saveChunk(chunk, report);
+        }
+    }
+
+    /**
+     * Saves the purchases of a chunk in one transaction.
+     *
+     * The products of all purchases in the chunk are resolved with one query, and purchases referring to unknown
+     * products are reported instead of saved. A transaction that fails because of a concurrent transaction is retried
+     * a bounded number of times. If the transaction still fails, every purchase of the chunk is reported.
+     * Afterwards the persistence context is cleared, so it does not grow with the size of the file.
+     */
+    private void saveChunk(List<ImportRow> chunk, PurchaseImportReportDto report) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        Set<String> names = chunk.stream()
+                .flatMap(row -> row.purchase().getPurchaseItems().stream())
+                .map(PurchasesItemDto::getProduct)
+                .collect(Collectors.toSet());
+        List<PurchaseImportErrorDto> errors = new ArrayList<>();
+        List<ImportRow> saved = new ArrayList<>();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        try {
+            concurrencyRetryService.execute("purchase.import", () -> purchaseWriteLimiter.execute(
+                    () -> transactionTemplate.executeWithoutResult(status -> {
+                        errors.clear();
+                        saved.clear();
+                        Map<String, Product> products = productService.getByNames(names);
+                        for (ImportRow row : chunk) {
+                            Optional<String> missing = row.purchase().getPurchaseItems().stream()
+                                    .map(PurchasesItemDto::getProduct)
+                                    .filter(name -> !products.containsKey(name))
+                                    .findFirst();
+                            if (missing.isPresent()) {
+                                errors.add(new PurchaseImportErrorDto(row.row(), "Could not find any product with name " + missing.get()));
+                            } else {
+                                saved.add(row);
+                            }
+                        }
+                        purchaseService.addAll(saved.stream().map(ImportRow::purchase).toList(), products);
+                    })));
+            report.setPurchasesImported(report.getPurchasesImported() + saved.size());
+        } catch (RuntimeException e) {
+            errors.clear();
+            for (ImportRow row : chunk) {
+                errors.add(new PurchaseImportErrorDto(row.row(), "Could not save purchase: " + e.getMessage()));
+            }
+        } finally {
+            entityManager.clear();
+        }
+        errors.forEach(error -> reportError(report, error));
+        chunk.clear();
+    }
+
+    /**
+     * Counts a rejected row, keeping its error only while the maximum number of errors has not been reached.
+     */
+    private void reportError(PurchaseImportReportDto report, PurchaseImportErrorDto error) {
+        report.setPurchasesFailed(report.getPurchasesFailed() + 1);
+        if (report.getErrors().size() < maxErrors) {
+            report.getErrors().add(error);
+        }
+    }
+
+    private double totalAmount(List<PurchasesItemDto> items) {
+        return items.stream().mapToDouble(item -> item.getQuantity() * item.getPrice()).sum();
+    }
+
+    private String value(List<String> values, int column) {
+        return column < values.size() ? values.get(column).trim() : "";
+    }
+
+    /**
+     * Splits a CSV line into its values. Values may be quoted, with doubled quotes inside a quoted value.
+     */
+    private List<String> parseCsvLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    value.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        values.add(value.toString());
+        return values;
+    }
+
+    private record ImportRow(long row, PurchaseDto purchase) {
+    }
+}
@@ -1,17 +1,37 @@
 package com.viser.StockTrade.service;
 
 import com.viser.StockTrade.dto.PurchaseDto;
+import com.viser.StockTrade.dto.PurchasePageDto;
+import com.viser.StockTrade.dto.PurchaseSummaryDto;
 import com.viser.StockTrade.dto.PurchasesItemDto;
+import com.viser.StockTrade.entity.IdempotencyKey;
 import com.viser.StockTrade.entity.Product;
 import com.viser.StockTrade.entity.Purchase;
 import com.viser.StockTrade.entity.PurchaseItem;
+import com.viser.StockTrade.entity.Supplier;
+import com.viser.StockTrade.events.PurchaseCreatedEvent;
 import com.viser.StockTrade.exceptions.ValidationException;
 import com.viser.StockTrade.repository.PurchaseRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.validation.BindingResult;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import static com.viser.StockTrade.exceptions.ExceptionHelper.throwValidationException;
@@ -21,6 +41,14 @@ import static com.viser.StockTrade.exceptions.ExceptionHelper.throwValidationExc
 public class PurchaseService {
     private final PurchaseRepository repo;
     private final ProductService productService;
+    private final SupplierService supplierService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final IdempotencyService idempotencyService;
+    private final StockLedgerService stockLedgerService;
+    private final PurchaseTotalService purchaseTotalService;
+    private final ConcurrencyRetryService concurrencyRetryService;
+    private final PurchaseWriteLimiter purchaseWriteLimiter;
+    private final PlatformTransactionManager transactionManager;
 
     /**
      * Saves a purchase record to the database.
@@ -34,55 +62,215 @@ public class PurchaseService {
     }
 
     /**
-     * Retrieves all purchase records from the database.
+     * Retrieves a purchase record by its ID.
      *
-     * This method returns a list of all {@link Purchase} entities by calling the repository's findAll method.
+     * This method fetches a {@link Purchase} entity from the database based on the provided ID.
      *
-     * @return a list of all purchases
+     * @param id the ID of the purchase to retrieve
+     * @return the purchase entity with the specified ID, or {@code null} if no such entity exists
      */
-    public List<Purchase> getAll() {
-        return repo.findAll();
+    public Purchase getById(int id) {
+        return repo.findById(id);
     }
 
     /**
-     * Retrieves a purchase record by its ID.
+     * Retrieves a purchase record by its ID together with all of its items.
      *
-     * This method fetches a {@link Purchase} entity from the database based on the provided ID.
+     * The items are fetched in the same query as the purchase, so the returned entity can be used
+     * outside of a persistence context, for example on a background rendering thread. Purchases that have been
+     * moved to the archive tables are read from there.
      *
      * @param id the ID of the purchase to retrieve
-     * @return the purchase entity with the specified ID, or {@code null} if no such entity exists
+     * @return the purchase entity with its items, or {@code null} if no such entity exists
      */
-    public Purchase getById(int id) {
-        return repo.findById(id);
+    public Purchase getByIdWithItems(int id) {
+        Purchase purchase = repo.findWithItemsById(id);
+        return purchase != null ? purchase : repo.findArchivedWithItemsById(id);
+    }
+
+    /**
+     * Retrieves the revision of the supplier details printed on the invoice of a purchase.
+     *
+     * @param id the ID of the purchase
+     * @return the ID and version of the supplier, {@code none} if the supplier no longer exists, or {@code null} if
+     *         no such purchase exists
+     */
+    public String getSupplierRevision(int id) {
+        return repo.findSupplierRevision(id);
+    }
+
+    /**
+     * Retrieves the IDs of all purchases matching the given date range and supplier, ordered by date.
+     *
+     * Every filter is optional; a {@code null} value means the filter is not applied.
+     *
+     * @param from the earliest purchase date, inclusive
+     * @param to the latest purchase date, inclusive
+     * @param supplier the name of the supplier
+     * @return the IDs of the matching purchases
+     */
+    public List<Integer> getIdsByDateAndSupplier(LocalDate from, LocalDate to, String supplier) {
+        return repo.findIdsByDateAndSupplier(from, to, supplier);
+    }
+
+    /**
+     * Retrieves one page of purchase summaries using keyset pagination.
+     *
+     * The purchases are ordered by date and ID. The returned cursor encodes the position of the last purchase of
+     * the page, and passing it back continues right after that purchase, so pages stay cheap and stable even while
+     * new purchases are added. Every filter is optional; a {@code null} value means the filter is not applied.
+     *
+     * @param from the earliest purchase date, inclusive
+     * @param to the latest purchase date, inclusive
+     * @param supplier the name of the supplier
+     * @param product the name of a product the purchases must contain
+     * @param ascending {@code true} to start with the oldest purchase, {@code false} to start with the newest
+     * @param cursor the cursor returned with the previous page, or {@code null} for the first page
+     * @param size the maximum number of purchases on the page
+     * @return a {@link PurchasePageDto} with the purchases of the page and the cursor of the next page, which is
+     *         {@code null} on the last page
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public PurchasePageDto getPage(LocalDate from, LocalDate to, String supplier, String product, boolean ascending,
+                                   String cursor, int size) {
+        LocalDate afterDate = null;
+        Integer afterId = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            try {
+                String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("_");
+                afterDate = LocalDate.parse(position[0]);
+                afterId = Integer.parseInt(position[1]);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid cursor " + cursor, e);
+            }
+        }
+        List<PurchaseSummaryDto> purchases = repo.findPage(from, to, supplier, product, ascending, afterDate, afterId, size + 1);
+        String nextCursor = null;
+        if (purchases.size() > size) {
+            purchases = purchases.subList(0, size);
+            PurchaseSummaryDto last = purchases.getLast();
+            nextCursor = Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString((last.date() + "_" + last.id()).getBytes(StandardCharsets.UTF_8));
+        }
+        return new PurchasePageDto(purchases, nextCursor);
     }
 
     /**
      * Adds a new purchase based on the provided {@link PurchaseDto}.
      *
+     * All products of the purchase are resolved with a single query before the items are built, and the
+     * resolved products are reused for the category lookup and the stock update, so the number of queries
+     * does not grow with the number of purchase items.
+     * After the purchase is saved, a {@link PurchaseCreatedEvent} is published so its invoice can be
+     * pre-rendered once the transaction commits.
+     *
+     * If an idempotency key is given, it is reserved in the same transaction as the purchase, so the key is
+     * stored if and only if the purchase is. A retried request with a key that has already been used is answered
+     * from the stored key without running the write again, so the purchase is not duplicated and its stock is not
+     * added twice. This also holds for a retry that arrives while the first request is still running: it waits for
+     * the first request to commit and is then treated as a replay.
+     *
+     * The transaction is retried a bounded number of times with random backoff if it fails because of a concurrent
+     * transaction, for example a deadlock or lock wait timeout on the stock of a heavily purchased product. The number
+     * of purchase transactions running at the same time is limited by the {@link PurchaseWriteLimiter}.
+     *
      * @param purchaseDto the data transfer object containing the details of the purchase to be added
      * @param result the binding result containing any validation errors
-     * @throws ValidationException if there are validation errors in the {@link BindingResult}
+     * @param idempotencyKey the idempotency key of the request, or {@code null} if the request has none
+     * @return {@code true} if the request was a replay of an already saved purchase, {@code false} if the purchase
+     *         was saved by this call
+     * @throws ValidationException if there are validation errors in the {@link BindingResult}, a product of the
+     *                             purchase does not exist, or the idempotency key is invalid or was already used for
+     *                             a different purchase
      */
-    public void add(PurchaseDto purchaseDto, BindingResult result) throws ValidationException {
+    public boolean add(PurchaseDto purchaseDto, BindingResult result, String idempotencyKey) throws ValidationException {
         throwValidationException(result, "/add-purchase-page");
-        Purchase purchase = new Purchase();
-        updatePurchaseFields(purchase, purchaseDto);
-        updateQuantityInProduct(purchase.getPurchaseItems());
-        save(purchase);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            Map<String, Product> products = getProducts(purchaseDto);
+            concurrencyRetryService.execute("purchase.add", () -> purchaseWriteLimiter.execute(
+                    () -> transactionTemplate.executeWithoutResult(status -> addAll(List.of(purchaseDto), products))));
+            return false;
+        }
+        if (idempotencyKey.length() > IdempotencyService.MAX_KEY_LENGTH) {
+            throw new ValidationException("The idempotency key cannot be longer than " + IdempotencyService.MAX_KEY_LENGTH
+                    + " characters.", "/add-purchase-page");
+        }
+
+        String requestHash = getRequestHash(purchaseDto);
+        if (isReplay(idempotencyKey, requestHash)) {
+            return true;
+        }
+        Map<String, Product> products = getProducts(purchaseDto);
+        try {
+            concurrencyRetryService.execute("purchase.add", () -> purchaseWriteLimiter.execute(
+                    () -> transactionTemplate.executeWithoutResult(status -> {
+                        idempotencyService.reserve(idempotencyKey, requestHash);
+                        List<Integer> ids = addAll(List.of(purchaseDto), products);
+                        idempotencyService.complete(idempotencyKey, ids.getFirst());
+                    })));
+        } catch (DataIntegrityViolationException e) {
+            if (!isReplay(idempotencyKey, requestHash)) {
+                throw e;
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Adds several already validated purchases in the current transaction.
+     *
+     * The products of all purchases must already be resolved, and the suppliers of all purchases are resolved with one
+     * query, so the purchases are built without further queries.
+     * The stock quantities of all purchases are updated with one batch of atomic updates, the purchases are saved
+     * together, their stock movements are appended to the stock ledger, their quantities are added to the chart
+     * totals, and a {@link PurchaseCreatedEvent} is published for each of them.
+     *
+     * The transaction must be run through the {@link PurchaseWriteLimiter}, because the IDs of the purchases may be
+     * fetched over a second database connection.
+     *
+     * @param purchaseDtos the validated purchases to be added
+     * @param products the {@link Product} entities referenced by the purchases, keyed by their name
+     * @return the IDs of the saved purchases, in the order of the given purchases
+     */
+    public List<Integer> addAll(List<PurchaseDto> purchaseDtos, Map<String, Product> products) {
+        List<Purchase> purchases = new ArrayList<>(purchaseDtos.size());
+        List<PurchaseItem> purchaseItems = new ArrayList<>();
+        Map<String, Supplier> suppliers = supplierService.getByNames(purchaseDtos.stream()
+                .map(PurchaseDto::getSupplier)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet()));
+        for (PurchaseDto purchaseDto : purchaseDtos) {
+            Purchase purchase = new Purchase();
+            updatePurchaseFields(purchase, purchaseDto, products, suppliers);
+            purchases.add(purchase);
+            purchaseItems.addAll(purchase.getPurchaseItems());
+        }
+        updateQuantityInProduct(purchaseItems);
+        repo.saveAll(purchases);
+        stockLedgerService.recordPurchases(purchases);
+        purchaseTotalService.add(purchaseItems);
+        List<Integer> ids = new ArrayList<>(purchases.size());
+        for (Purchase purchase : purchases) {
+            eventPublisher.publishEvent(new PurchaseCreatedEvent(purchase.getId()));
+            ids.add(purchase.getId());
+        }
+        return ids;
     }
 
     /**
      * Retrieves a {@link PurchaseDto} based on the provided purchase ID.
      *
-     * This method fetches a {@link Purchase} entity by its ID using {@link #getById(int)},
-     * and then maps it to a {@link PurchaseDto} containing relevant purchase details including
+     * This method fetches a {@link Purchase} entity together with its items in one query using
+     * {@link #getByIdWithItems(int)}, and then maps it to a {@link PurchaseDto} containing relevant purchase details including
      * the supplier name, date, total amount, and a list of purchase items.
      *
      * @param id the ID of the purchase to retrieve
      * @return a {@link PurchaseDto} containing the details of the purchase
      */
     public PurchaseDto getPurchaseInDto(int id) {
-        Purchase purchase = getById(id);
+        Purchase purchase = getByIdWithItems(id);
         PurchaseDto purchaseDto = new PurchaseDto();
         purchaseDto.setId(purchase.getId());
         purchaseDto.setSupplier(purchase.getSupplierName());
@@ -95,21 +283,84 @@ public class PurchaseService {
         return purchaseDto;
     }
 
+    /**
+     * Checks if a request with an idempotency key has already been processed.
+     *
+     * @param idempotencyKey the idempotency key of the request
+     * @param requestHash the hash of the request
+     * @return {@code true} if a purchase was already saved with the key, {@code false} otherwise
+     * @throws ValidationException if the key was already used for a different purchase
+     */
+    private boolean isReplay(String idempotencyKey, String requestHash) throws ValidationException {
+        IdempotencyKey storedKey = idempotencyService.get(idempotencyKey);
+        if (storedKey == null) {
+            return false;
+        }
+        if (!storedKey.getRequestHash().equals(requestHash)) {
+            throw new ValidationException("The idempotency key has already been used for a different purchase.", "/add-purchase-page");
+        }
+        idempotencyService.recordReplay();
+        return true;
+    }
+
+    /**
+     * Computes the SHA-256 hash of the content of a purchase, used to detect an idempotency key that is reused for
+     * a different purchase.
+     *
+     * @param purchaseDto the data transfer object containing the details of the purchase
+     * @return the hash as a lowercase hexadecimal string
+     */
+    private String getRequestHash(PurchaseDto purchaseDto) {
+        StringBuilder content = new StringBuilder()
+                .append(purchaseDto.getSupplier()).append('\n')
+                .append(purchaseDto.getDate()).append('\n')
+                .append(purchaseDto.getTotalAmount());
+        for (PurchasesItemDto item : purchaseDto.getPurchaseItems()) {
+            content.append('\n').append(item.getProduct()).append('|').append(item.getQuantity()).append('|').append(item.getPrice());
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(content.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Resolves all products referenced by the items of a purchase with a single query.
+     *
+     * @param purchaseDto the data transfer object containing the purchase items
+     * @return a {@link Map} of the referenced {@link Product} entities keyed by their name
+     * @throws ValidationException if one of the referenced products does not exist
+     */
+    private Map<String, Product> getProducts(PurchaseDto purchaseDto) throws ValidationException {
+        Set<String> names = purchaseDto.getPurchaseItems().stream()
+                .map(PurchasesItemDto::getProduct)
+                .collect(Collectors.toSet());
+        Map<String, Product> products = productService.getByNames(names);
+        for (String name : names) {
+            if (!products.containsKey(name)) {
+                throw new ValidationException("Could not find any product with name " + name, "/add-purchase-page");
+            }
+        }
+        return products;
+    }
+
     /**
      * Updates the stock quantity of products based on the provided purchase items.
      *
-     * This method iterates over the given list of {@link PurchaseItem} entities, retrieves the corresponding
-     * {@link Product} for each item, updates the product's
-     * stock quantity by adding the quantity from the purchase item, and then saves the updated product
+     * This method sums up the quantities of the given {@link PurchaseItem} entities per product ID and adds the sums
+     * to the stock quantities with one batch of atomic updates. The product entities themselves are not modified or
+     * saved.
      *
      * @param purchaseItems a list of {@link PurchaseItem} entities containing the products and their quantities
      */
     private void updateQuantityInProduct(List<PurchaseItem> purchaseItems) {
+        Map<Integer, Integer> quantities = new HashMap<>();
         for (PurchaseItem purchaseItem : purchaseItems) {
-            Product product = productService.getByName(purchaseItem.getProductName());
-            product.setStockQuantity(product.getStockQuantity() + purchaseItem.getQuantity());
-            productService.save(product);
+            quantities.merge(purchaseItem.getProductId(), purchaseItem.getQuantity(), Integer::sum);
         }
+        productService.incrementStockQuantities(quantities);
     }
 
     /**
@@ -117,26 +368,36 @@ public class PurchaseService {
      *
      * This method sets the supplier name, date, and total amount of the purchase. It also maps
      * the list of {@link PurchasesItemDto} from the DTO to a list of {@link PurchaseItem} entities,
-     * setting their product information, category, quantity, and price. The {@link Product} is retrieved
-     * by its name, and each {@link PurchaseItem} is associated
-     * with the given {@link Purchase}.
+     * setting their product information, category, quantity, and price. The {@link Product} is taken
+     * from the already resolved products by its name, and each {@link PurchaseItem} is associated
+     * with the given {@link Purchase}. Next to the names, the IDs of the supplier, product and category
+     * are stored, which the aggregates group by.
      *
      * @param purchase the {@link Purchase} entity to be updated
      * @param purchaseDto the data transfer object containing the new values for the purchase
+     * @param products the resolved {@link Product} entities keyed by their name
+     * @param suppliers the resolved {@link Supplier} entities keyed by their name
      */
-    private void updatePurchaseFields(Purchase purchase, PurchaseDto purchaseDto) {
+    private void updatePurchaseFields(Purchase purchase, PurchaseDto purchaseDto, Map<String, Product> products,
+                                      Map<String, Supplier> suppliers) {
+        Supplier supplier = suppliers.get(purchaseDto.getSupplier());
         purchase.setSupplierName(purchaseDto.getSupplier());
+        purchase.setSupplierId(supplier != null ? supplier.getId() : null);
         purchase.setDate(purchaseDto.getDate());
         purchase.setTotalAmount(purchaseDto.getTotalAmount());
 
         List<PurchaseItem> purchaseItems = purchaseDto.getPurchaseItems().stream().map(dto -> {
             PurchaseItem item = new PurchaseItem();
-            Product product = productService.getByName(dto.getProduct());
+            Product product = products.get(dto.getProduct());
             item.setProductName(dto.getProduct());
             item.setProductCategory(product.getCategory().getName());
+            item.setProductId(product.getId());
+            item.setCategoryId(product.getCategory().getId());
+            item.setSupplierId(purchase.getSupplierId());
             item.setQuantity(dto.getQuantity());
             item.setPrice(dto.getPrice());
             item.setPurchase(purchase);
+            item.setPurchaseDate(purchase.getDate());
             return item;
         }).collect(Collectors.toList());
 
@@ -0,0 +1,151 @@
+package com.viser.StockTrade.service;
+
+import com.viser.StockTrade.entity.PurchaseDailyTotalId;
+import com.viser.StockTrade.entity.PurchaseItem;
+import com.viser.StockTrade.entity.PurchaseTotalId;
+import com.viser.StockTrade.enums.PurchaseTotalDimension;
+import com.viser.StockTrade.repository.PurchaseDailyTotalRepository;
+import com.viser.StockTrade.repository.PurchaseTotalRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@Service
+@RequiredArgsConstructor
+public class PurchaseTotalService {
+    /**
+     * The key of the totals of purchase items whose category, product or supplier could not be resolved.
+     */
+    public static final int UNKNOWN_KEY = 0;
+
+    /**
+     * The orders the all-time and daily totals are updated in, so concurrent purchases lock the rows in the same order
+     * and never deadlock.
+     */
+    private static final Comparator<PurchaseTotalId> LOCK_ORDER =
+            Comparator.comparing(PurchaseTotalId::getDimension).thenComparingInt(PurchaseTotalId::getKeyId)
+                    .thenComparing(PurchaseTotalId::getName);
+    private static final Comparator<PurchaseDailyTotalId> DAILY_LOCK_ORDER =
+            Comparator.comparing(PurchaseDailyTotalId::getDimension).thenComparingInt(PurchaseDailyTotalId::getKeyId)
+                    .thenComparing(PurchaseDailyTotalId::getPurchaseDate);
+
+    private final PurchaseTotalRepository repo;
+    private final PurchaseDailyTotalRepository dailyRepo;
+    private final ConcurrencyRetryService concurrencyRetryService;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Adds the quantities of saved purchase items to the all-time and daily totals per category, product and supplier
+     * in the current transaction.
+     *
+     * The quantities are summed per total first, so each total is updated once per call, and all totals are updated
+     * with one batch per table in a fixed order. The all-time totals are also kept per name the items are saved with,
+     * so the charts can still label them once their category, product or supplier has been deleted.
+     *
+     * @param purchaseItems the saved purchase items
+     */
+    public void add(List<PurchaseItem> purchaseItems) {
+        Map<PurchaseTotalId, Long> quantities = new TreeMap<>(LOCK_ORDER);
+        Map<PurchaseDailyTotalId, Long> dailyQuantities = new TreeMap<>(DAILY_LOCK_ORDER);
+        for (PurchaseItem purchaseItem : purchaseItems) {
+            long quantity = purchaseItem.getQuantity();
+            Map<PurchaseTotalDimension, Integer> keys = Map.of(
+                    PurchaseTotalDimension.CATEGORY, getKey(purchaseItem.getCategoryId()),
+                    PurchaseTotalDimension.PRODUCT, getKey(purchaseItem.getProductId()),
+                    PurchaseTotalDimension.SUPPLIER, getKey(purchaseItem.getSupplierId()));
+            Map<PurchaseTotalDimension, String> names = Map.of(
+                    PurchaseTotalDimension.CATEGORY, purchaseItem.getProductCategory(),
+                    PurchaseTotalDimension.PRODUCT, purchaseItem.getProductName(),
+                    PurchaseTotalDimension.SUPPLIER, purchaseItem.getPurchase().getSupplierName());
+            keys.forEach((dimension, keyId) -> {
+                quantities.merge(new PurchaseTotalId(dimension, keyId, names.get(dimension)), quantity, Long::sum);
+                dailyQuantities.merge(new PurchaseDailyTotalId(dimension, keyId, purchaseItem.getPurchaseDate()), quantity, Long::sum);
+            });
+        }
+        repo.incrementAll(quantities);
+        dailyRepo.incrementAll(dailyQuantities);
+    }
+
+    /**
+     * Retrieves the total purchased quantity per category.
+     *
+     * The current name of the category is returned, or the name its purchase items were saved with if it has been
+     * deleted, so several arrays can contain the same name.
+     *
+     * @return a list of object arrays, where each array contains the category name and its total quantity
+     */
+    public List<Object[]> getCategoryTotals() {
+        return repo.findCategoryTotals();
+    }
+
+    /**
+     * Retrieves the total purchased quantity per product.
+     *
+     * The current name of the product is returned, or the name its purchase items were saved with if it has been
+     * deleted, so several arrays can contain the same name.
+     *
+     * @return a list of object arrays, where each array contains the product name and its total quantity
+     */
+    public List<Object[]> getProductTotals() {
+        return repo.findProductTotals();
+    }
+
+    /**
+     * Retrieves the total purchased quantity per supplier.
+     *
+     * The current name of the supplier is returned, or the name its purchase items were saved with if it has been
+     * deleted, so several arrays can contain the same name.
+     *
+     * @return a list of object arrays, where each array contains the supplier name and its total quantity
+     */
+    public List<Object[]> getSupplierTotals() {
+        return repo.findSupplierTotals();
+    }
+
+    /**
+     * Retrieves the purchased quantity per day in a period, optionally restricted to one category, product or
+     * supplier.
+     *
+     * Without a key, the quantities of all categories are summed up, which covers every purchase item exactly once.
+     * Days without purchases are not contained in the result.
+     *
+     * @param dimension the dimension of the key
+     * @param keyId the ID of the category, product or supplier, or {@code null} for all purchases
+     * @param from the first day of the period, inclusive
+     * @param to the last day of the period, inclusive
+     * @return a list of object arrays, where each array contains a date and its quantity, ordered by date
+     */
+    public List<Object[]> getDailyQuantities(PurchaseTotalDimension dimension, Integer keyId, LocalDate from, LocalDate to) {
+        return dailyRepo.sumQuantityByDate(dimension, keyId, from, to);
+    }
+
+    /**
+     * Regenerates all totals from the live and archived purchase items.
+     *
+     * The totals are replaced in one transaction, so readers see either the old or the new totals. Purchases
+     * committed while the rebuild is running wait for it on the locked totals and are added on top of the rebuilt
+     * totals. The time taken is recorded as the {@code purchase.totals.rebuild} metric.
+     */
+    @Scheduled(cron = "${myapp.custom.purchase.totals.rebuild-cron:0 0 3 * * SUN}")
+    public void rebuild() {
+        meterRegistry.timer("purchase.totals.rebuild").record(() -> concurrencyRetryService.execute("purchase.totals.rebuild",
+                () -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                    repo.rebuild();
+                    dailyRepo.rebuild();
+                })));
+    }
+
+    private int getKey(Integer keyId) {
+        return keyId != null ? keyId : UNKNOWN_KEY;
+    }
+}
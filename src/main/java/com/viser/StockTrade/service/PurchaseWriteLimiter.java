@@ -0,0 +1,73 @@
+package com.viser.StockTrade.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+@Service
+@RequiredArgsConstructor
+public class PurchaseWriteLimiter {
+    private final MeterRegistry meterRegistry;
+    private Semaphore permits;
+
+    @Value("${spring.datasource.hikari.maximum-pool-size:10}")
+    private int poolSize;
+
+    /**
+     * Creates the permits for transactions that write purchases, one less than there are database connections.
+     *
+     * Purchases and purchase items get their IDs from a table generator, which fetches a new block of IDs over a
+     * second connection while the transaction holds its first one. If every connection of the pool were held by such
+     * a transaction, all of them would wait for a second connection until the pool times out. With one permit less
+     * than there are connections, a connection is always left for fetching IDs.
+     */
+    @PostConstruct
+    public void init() {
+        permits = new Semaphore(Math.max(poolSize - 1, 1), true);
+    }
+
+    /**
+     * Runs a transaction that writes purchases, waiting while the maximum number of such transactions is running.
+     *
+     * The time spent waiting is recorded as the {@code purchase.write.wait} metric.
+     *
+     * @param action the action, which must start and end its own transaction
+     * @param <T> the result type of the action
+     * @return the result of the action
+     * @throws IllegalStateException if the thread is interrupted while waiting
+     */
+    public <T> T execute(Supplier<T> action) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting to write purchases", e);
+        } finally {
+            sample.stop(meterRegistry.timer("purchase.write.wait"));
+        }
+        try {
+            return action.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Runs a transaction without a result that writes purchases, like {@link #execute(Supplier)}.
+     *
+     * @param action the action, which must start and end its own transaction
+     */
+    public void execute(Runnable action) {
+        execute(() -> {
+            action.run();
+            return null;
+        });
+    }
+}
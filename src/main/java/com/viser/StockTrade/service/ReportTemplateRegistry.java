@@ -0,0 +1,147 @@
+package com.viser.StockTrade.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JasperCompileManager;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.xml.JRXmlLoader;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+@RequiredArgsConstructor
+public class ReportTemplateRegistry {
+    public static final String INVOICE_TEMPLATE = "/invoice.jrxml";
+    public static final String STATEMENT_TEMPLATE = "/statement.jrxml";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, CompiledTemplate> templates = new ConcurrentHashMap<>();
+
+    @Value("${myapp.custom.invoice.template-check-interval:30s}")
+    private Duration checkInterval;
+
+    /**
+     * Compiles the invoice and statement templates when the application starts.
+     *
+     * This method makes sure the first request does not pay the cost of compiling the templates.
+     *
+     * @throws JRException if a template cannot be compiled
+     */
+    @PostConstruct
+    public void compileOnStartup() throws JRException {
+        getReport(INVOICE_TEMPLATE);
+        getReport(STATEMENT_TEMPLATE);
+    }
+
+    /**
+     * Retrieves the compiled {@link JasperReport} for the given classpath template.
+     *
+     * The template is compiled only once and the compiled report is shared between all threads. At most once per
+     * check interval the checksum of the template source is recalculated, and the template is compiled again
+     * only if the checksum has changed.
+     *
+     * @param templatePath the classpath location of the .jrxml template
+     * @return the compiled {@link JasperReport}
+     * @throws JRException if the template cannot be read or compiled
+     */
+    public JasperReport getReport(String templatePath) throws JRException {
+        return getTemplate(templatePath).report();
+    }
+
+    /**
+     * Retrieves the version of the given template.
+     *
+     * The version is the SHA-256 checksum of the template source, so it changes whenever the template is modified.
+     *
+     * @param templatePath the classpath location of the .jrxml template
+     * @return the checksum of the currently compiled template
+     * @throws JRException if the template cannot be read or compiled
+     */
+    public String getVersion(String templatePath) throws JRException {
+        return getTemplate(templatePath).checksum();
+    }
+
+    /**
+     * Returns the cached template, compiling it first if it is missing or its source has changed.
+     *
+     * @param templatePath the classpath location of the .jrxml template
+     * @return the cached {@link CompiledTemplate}
+     * @throws JRException if the template cannot be read or compiled
+     */
+    private CompiledTemplate getTemplate(String templatePath) throws JRException {
+        CompiledTemplate template = templates.get(templatePath);
+        if (template != null && !template.isCheckDue(checkInterval)) {
+            return template;
+        }
+        synchronized (templates) {
+            template = templates.get(templatePath);
+            if (template != null && !template.isCheckDue(checkInterval)) {
+                return template;
+            }
+            byte[] source = readTemplate(templatePath);
+            String checksum = checksum(source);
+            if (template != null && template.checksum().equals(checksum)) {
+                template = new CompiledTemplate(template.report(), checksum, System.nanoTime());
+            } else {
+                template = new CompiledTemplate(compile(templatePath, source), checksum, System.nanoTime());
+            }
+            templates.put(templatePath, template);
+            return template;
+        }
+    }
+
+    /**
+     * Compiles the template source and records the compile time.
+     *
+     * @param templatePath the classpath location of the template, used as a metric tag
+     * @param source the template source
+     * @return the compiled {@link JasperReport}
+     * @throws JRException if the template cannot be compiled
+     */
+    private JasperReport compile(String templatePath, byte[] source) throws JRException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            return JasperCompileManager.compileReport(JRXmlLoader.load(new ByteArrayInputStream(source)));
+        } finally {
+            sample.stop(meterRegistry.timer("invoice.template.compile", "template", templatePath));
+        }
+    }
+
+    private byte[] readTemplate(String templatePath) throws JRException {
+        try (InputStream input = getClass().getResourceAsStream(templatePath)) {
+            if (input == null) {
+                throw new JRException("Report template " + templatePath + " not found.");
+            }
+            return input.readAllBytes();
+        } catch (IOException e) {
+            throw new JRException("Could not read report template " + templatePath, e);
+        }
+    }
+
+    private String checksum(byte[] source) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(source));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record CompiledTemplate(JasperReport report, String checksum, long checkedAt) {
+        boolean isCheckDue(Duration interval) {
+            return System.nanoTime() - checkedAt >= interval.toNanos();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.viser.StockTrade.service;
+
+import com.viser.StockTrade.dto.StockLevelDto;
+import com.viser.StockTrade.dto.StockMovementDto;
+import com.viser.StockTrade.entity.Purchase;
+import com.viser.StockTrade.entity.PurchaseItem;
+import com.viser.StockTrade.entity.StockMovement;
+import com.viser.StockTrade.enums.StockMovementType;
+import com.viser.StockTrade.repository.StockMovementRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+@RequiredArgsConstructor
+public class StockLedgerService {
+    private final StockMovementRepository repo;
+
+    @Value("${myapp.custom.stock.snapshot.lag:5m}")
+    private Duration snapshotLag;
+
+    /**
+     * Records the stock movements caused by saved purchases in the current transaction.
+     *
+     * One movement is appended per purchase and product, with the quantities of items of the same product summed up.
+     * All movements are written in one batch.
+     *
+     * @param purchases the saved purchases, which must already have their IDs
+     */
+    public void recordPurchases(List<Purchase> purchases) {
+        List<StockMovement> movements = new ArrayList<>();
+        for (Purchase purchase : purchases) {
+            Map<Integer, Integer> quantities = new LinkedHashMap<>();
+            for (PurchaseItem purchaseItem : purchase.getPurchaseItems()) {
+                quantities.merge(purchaseItem.getProductId(), purchaseItem.getQuantity(), Integer::sum);
+            }
+            quantities.forEach((productId, quantity) ->
+                    movements.add(new StockMovement(productId, StockMovementType.PURCHASE, quantity, purchase.getId())));
+        }
+        repo.appendAll(movements);
+    }
+
+    /**
+     * Records a manual change of the stock quantity of a product in the current transaction.
+     *
+     * Nothing is recorded if the quantity did not change.
+     *
+     * @param productId the ID of the product
+     * @param type the type of the movement, {@link StockMovementType#OPENING} for a new product or
+     *             {@link StockMovementType#ADJUSTMENT} for an edit
+     * @param quantity the change of the stock quantity
+     */
+    public void recordAdjustment(int productId, StockMovementType type, int quantity) {
+        if (quantity != 0) {
+            repo.appendAll(List.of(new StockMovement(productId, type, quantity, null)));
+        }
+    }
+
+    /**
+     * Retrieves the stock quantity of a product at a given time.
+     *
+     * The quantity is taken from the latest snapshot of the product before that time plus the movements since the
+     * snapshot, so it never has to replay the whole history of the product.
+     *
+     * @param productId the ID of the product
+     * @param at the time of the stock quantity
+     * @return a {@link StockLevelDto} with the stock quantity of the product at the given time
+     */
+    public StockLevelDto getStockAt(int productId, LocalDateTime at) {
+        return new StockLevelDto(productId, at, repo.getStockAt(productId, at));
+    }
+
+    /**
+     * Retrieves the stock movements of a product in a period, oldest first.
+     *
+     * @param productId the ID of the product
+     * @param from the start of the period, inclusive
+     * @param to the end of the period, exclusive
+     * @param limit the maximum number of movements
+     * @return the movements of the product in the period
+     */
+    public List<StockMovementDto> getMovements(int productId, LocalDateTime from, LocalDateTime to, int limit) {
+        return repo.findHistory(productId, from, to, Limit.of(limit));
+    }
+
+    /**
+     * Takes a stock snapshot of every product that has moved since its last snapshot.
+     *
+     * The snapshot is taken a little in the past, as configured by {@code myapp.custom.stock.snapshot.lag}, and
+     * never after the start of a transaction that is still running, so the movements of transactions that commit
+     * after the job has run are counted by the next snapshot instead of being missed.
+     */
+    @Transactional
+    @Scheduled(cron = "${myapp.custom.stock.snapshot.cron:0 0 1 * * *}")
+    public void createSnapshots() {
+        repo.createSnapshots(snapshotLag);
+    }
+}
@@ -0,0 +1,225 @@
+package com.viser.StockTrade.service;
+
+import com.viser.StockTrade.entity.Product;
+import com.viser.StockTrade.repository.ProductRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StockWriteBehindService {
+    private final ProductRepository productRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final EntityManager entityManager;
+    private final MeterRegistry meterRegistry;
+    private final ReadWriteLock flushLock = new ReentrantReadWriteLock();
+    private Map<Integer, Integer> pending = new HashMap<>();
+    private Map<Integer, Integer> flushing = Map.of();
+    private ScheduledExecutorService writer;
+
+    @Value("${myapp.custom.stock.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${myapp.custom.stock.write-behind.flush-interval:200ms}")
+    private Duration flushInterval;
+
+    /**
+     * Starts the single writer thread that flushes the pending stock increments, if write-behind is enabled.
+     *
+     * Pending increments only live in memory, so increments of purchases that were committed shortly before a crash
+     * can be lost. Their stock movements were recorded synchronously, so the stock quantities are first reconciled
+     * with the stock ledger. Write-behind must therefore only be enabled when a single instance of the application
+     * writes to the database.
+     */
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> productRepository.reconcileStockQuantities());
+        writer = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("stock-write-behind-"));
+        writer.scheduleWithFixedDelay(this::flushScheduled, flushInterval.toMillis(), flushInterval.toMillis(), TimeUnit.MILLISECONDS);
+        Gauge.builder("stock.write-behind.pending", this, StockWriteBehindService::getPendingCount).register(meterRegistry);
+    }
+
+    /**
+     * Flushes the remaining increments and stops the writer thread.
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (writer != null) {
+            flush();
+            writer.shutdown();
+        }
+    }
+
+    /**
+     * Checks if stock increments are applied by the writer thread instead of the purchase transaction.
+     *
+     * @return {@code true} if write-behind is enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queues stock increments for the writer thread once the current transaction has committed.
+     *
+     * The increments are coalesced per product with the increments of other purchases that are still pending, so
+     * a product that is bought many times between two flushes is updated only once. If the transaction is rolled
+     * back, the increments are discarded.
+     *
+     * @param quantities the quantities to be added, keyed by product ID
+     */
+    public void add(Map<Integer, Integer> quantities) {
+        Map<Integer, Integer> increments = Map.copyOf(quantities);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(increments);
+                }
+            });
+        } else {
+            enqueue(increments);
+        }
+    }
+
+    /**
+     * Applies all pending increments to the database and waits until they are committed.
+     *
+     * The flush runs on the writer thread, so it is ordered with the scheduled flushes.
+     *
+     * @throws org.springframework.dao.DataAccessException if the increments could not be written; they stay pending
+     */
+    public void flush() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.submit(this::flushPending).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while flushing stock increments", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Reads products and adds the pending increments to their stock quantities.
+     *
+     * The products are read while no flush is being committed, so an increment is never missing from both the
+     * database and the pending increments, and is never counted in both. Products with pending increments are
+     * detached from the persistence context before their stock quantity is changed, so the merged quantity is never
+     * written back to the database.
+     *
+     * @param reader the query reading the products
+     * @return the products with their current stock quantities
+     */
+    public List<Product> withPendingStock(Supplier<List<Product>> reader) {
+        if (!enabled) {
+            return reader.get();
+        }
+        flushLock.readLock().lock();
+        try {
+            List<Product> products = reader.get();
+            synchronized (this) {
+                for (Product product : products) {
+                    int increment = pending.getOrDefault(product.getId(), 0) + flushing.getOrDefault(product.getId(), 0);
+                    if (increment != 0) {
+                        entityManager.detach(product);
+                        product.setStockQuantity(product.getStockQuantity() + increment);
+                    }
+                }
+            }
+            return products;
+        } finally {
+            flushLock.readLock().unlock();
+        }
+    }
+
+    private synchronized void enqueue(Map<Integer, Integer> increments) {
+        increments.forEach((productId, quantity) -> pending.merge(productId, quantity, Integer::sum));
+    }
+
+    private synchronized int getPendingCount() {
+        return pending.size() + flushing.size();
+    }
+
+    private void flushScheduled() {
+        try {
+            flushPending();
+        } catch (RuntimeException e) {
+            // The increments stay pending and are retried with the next flush
+            log.warn("Flushing the pending stock increments failed, {} products are still pending", getPendingCount(), e);
+        }
+    }
+
+    /**
+     * Writes the pending increments to the database as one batch of atomic updates.
+     *
+     * Only the writer thread calls this method, so flushes are committed one after the other in the order they were
+     * taken. If the batch fails, its increments are merged back into the pending increments, so they are written by
+     * the next flush. Failed flushes are counted as the {@code stock.write-behind.flush.failures} metric.
+     */
+    private void flushPending() {
+        Map<Integer, Integer> batch;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            flushing = batch;
+            pending = new HashMap<>();
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        flushLock.writeLock().lock();
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> productRepository.incrementStockQuantities(batch));
+            synchronized (this) {
+                flushing = Map.of();
+            }
+            meterRegistry.counter("stock.write-behind.flushed").increment(batch.size());
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                batch.forEach((productId, quantity) -> pending.merge(productId, quantity, Integer::sum));
+                flushing = Map.of();
+            }
+            meterRegistry.counter("stock.write-behind.flush.failures").increment();
+            throw e;
+        } finally {
+            flushLock.writeLock().unlock();
+            sample.stop(meterRegistry.timer("stock.write-behind.flush"));
+        }
+    }
+}
@@ -8,10 +8,15 @@ import com.viser.StockTrade.exceptions.NotFoundException;
 import com.viser.StockTrade.exceptions.ValidationException;
 import com.viser.StockTrade.repository.SupplierRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.validation.BindingResult;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static com.viser.StockTrade.exceptions.ExceptionHelper.*;
 
@@ -19,6 +24,7 @@ import static com.viser.StockTrade.exceptions.ExceptionHelper.*;
 @RequiredArgsConstructor
 public class SupplierService {
     private final SupplierRepository repo;
+    private final ConcurrencyRetryService concurrencyRetryService;
 
     /**
      * Saves a {@link Supplier} entity to the database.
@@ -79,6 +85,21 @@ public class SupplierService {
         return repo.findByName(name);
     }
 
+    /**
+     * Retrieves all {@link Supplier} entities with the given names in a single query.
+     *
+     * Names without a matching supplier are not contained in the result.
+     *
+     * @param names the names of the suppliers to retrieve
+     * @return a {@link Map} of the found {@link Supplier} entities keyed by their name
+     */
+    public Map<String, Supplier> getByNames(Collection<String> names) {
+        if (names.isEmpty()) {
+            return Map.of();
+        }
+        return repo.findByNameIn(names).stream().collect(Collectors.toMap(Supplier::getName, Function.identity()));
+    }
+
     /**
      * Checks if a {@link Supplier} entity exists with the given name.
      *
@@ -155,7 +176,8 @@ public class SupplierService {
      * @param id the ID of the supplier to be edited
      * @param supplierDto the data transfer object containing the new details for the supplier
      * @param result the binding result containing any validation errors
-     * @throws ValidationException if there are validation errors in the {@link BindingResult}
+     * @throws ValidationException if there are validation errors in the {@link BindingResult}, or if the supplier was
+     *                             changed by someone else since the edit form was loaded
      * @throws NotFoundException if no supplier with the specified ID is found
      * @throws NameExistException if a supplier with the new name already exists
      */
@@ -164,8 +186,27 @@ public class SupplierService {
         Supplier supplier = getById(id);
         throwNotFoundException(supplier, "Could not find any supplier with ID" + id, "/edit-supplier-page/" + id);
         throwNameExistException(isSupplierNameChangedAndExists(supplier, supplierDto), "A supplier with this name already exists. Please choose a different name.", "/edit-supplier-page/" + id);
+        if (supplierDto.getVersion() != null && supplierDto.getVersion() != supplier.getVersion()) {
+            throw versionConflict(supplier, "/edit-supplier-page/" + id);
+        }
         updateSupplierFields(supplier, supplierDto);
-        save(supplier);
+        try {
+            save(supplier);
+        } catch (OptimisticLockingFailureException e) {
+            throw versionConflict(supplier, "/edit-supplier-page/" + id);
+        }
+    }
+
+    /**
+     * Counts a rejected edit of a supplier and creates the {@link ValidationException} reported to the user.
+     *
+     * @param supplier the supplier that was changed by someone else
+     * @param redirectUrl the URL to redirect to
+     * @return the {@link ValidationException} to be thrown
+     */
+    private ValidationException versionConflict(Supplier supplier, String redirectUrl) {
+        concurrencyRetryService.recordConflict("supplier", supplier.getId(), supplier.getName());
+        return new ValidationException(VERSION_CONFLICT_MESSAGE, redirectUrl);
     }
 
     /**
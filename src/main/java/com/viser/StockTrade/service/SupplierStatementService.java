@@ -0,0 +1,124 @@
+package com.viser.StockTrade.service;
+
+import com.viser.StockTrade.dto.StatementLineDto;
+import com.viser.StockTrade.entity.Supplier;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import net.sf.jasperreports.engine.*;
+import net.sf.jasperreports.engine.fill.JRSwapFileVirtualizer;
+import net.sf.jasperreports.engine.util.JRSwapFile;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.stream.Stream;
+
+@Service
+@RequiredArgsConstructor
+public class SupplierStatementService {
+    private final PurchaseItemService purchaseItemService;
+    private final ReportTemplateRegistry templateRegistry;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${myapp.custom.invoice.statement.swap-dir}")
+    private String SWAP_DIR;
+
+    @Value("${myapp.custom.invoice.statement.max-pages-in-memory:100}")
+    private int maxPagesInMemory;
+
+    /**
+     * Generates the consolidated statement of all purchases from a supplier in a period and writes it as PDF.
+     *
+     * The statement lines are streamed from the database straight into the report, without being collected into a
+     * list first. The filled pages are kept in a swap-file virtualizer, so only a bounded number of pages is held in
+     * memory no matter how many purchases and items the statement contains.
+     *
+     * @param supplier the {@link Supplier} the statement is generated for
+     * @param from the first day of the period, inclusive
+     * @param to the last day of the period, inclusive
+     * @param outputStream the stream the PDF is written to
+     * @throws JRException if there is an error while generating the PDF report
+     */
+    public void writeStatement(Supplier supplier, LocalDate from, LocalDate to, OutputStream outputStream) throws JRException {
+        JasperReport jasperReport = templateRegistry.getReport(ReportTemplateRegistry.STATEMENT_TEMPLATE);
+        JRSwapFileVirtualizer virtualizer = new JRSwapFileVirtualizer(maxPagesInMemory, new JRSwapFile(SWAP_DIR, 4096, 100), true);
+        try {
+            Map<String, Object> parameters = new HashMap<>();
+            parameters.put(JRParameter.REPORT_VIRTUALIZER, virtualizer);
+            parameters.put("supplier", supplier.getName());
+            parameters.put("supplierAddress", supplier.getAddress());
+            parameters.put("supplierPhone", supplier.getPhone());
+            parameters.put("supplierEmail", supplier.getEmail());
+            parameters.put("from", from);
+            parameters.put("to", to);
+
+            TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+            transactionTemplate.setReadOnly(true);
+            JasperPrint jasperPrint = transactionTemplate.execute(status -> {
+                try (Stream<StatementLineDto> lines = purchaseItemService.streamStatementLines(supplier.getId(), from, to)) {
+                    return fill(jasperReport, parameters, new StatementDataSource(lines.iterator()));
+                } catch (JRException e) {
+                    throw new JRRuntimeException(e);
+                }
+            });
+            virtualizer.setReadOnly(true);
+
+            Timer.Sample sample = Timer.start(meterRegistry);
+            try {
+                JasperExportManager.exportReportToPdfStream(jasperPrint, outputStream);
+            } finally {
+                sample.stop(meterRegistry.timer("statement.export"));
+            }
+        } finally {
+            virtualizer.cleanup();
+        }
+    }
+
+    private JasperPrint fill(JasperReport jasperReport, Map<String, Object> parameters, JRDataSource dataSource) throws JRException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            return JasperFillManager.fillReport(jasperReport, parameters, dataSource);
+        } finally {
+            sample.stop(meterRegistry.timer("statement.fill"));
+        }
+    }
+
+    /**
+     * A {@link JRDataSource} reading statement lines one by one from an iterator.
+     */
+    private static class StatementDataSource implements JRDataSource {
+        private final Iterator<StatementLineDto> lines;
+        private StatementLineDto current;
+
+        StatementDataSource(Iterator<StatementLineDto> lines) {
+            this.lines = lines;
+        }
+
+        @Override
+        public boolean next() {
+            current = lines.hasNext() ? lines.next() : null;
+            return current != null;
+        }
+
+        @Override
+        public Object getFieldValue(JRField field) throws JRException {
+            return switch (field.getName()) {
+                case "purchaseId" -> current.getPurchaseId();
+                case "date" -> current.getDate();
+                case "product" -> current.getProduct();
+                case "quantity" -> current.getQuantity();
+                case "unitPrice" -> current.getUnitPrice();
+                case "lineTotal" -> current.getLineTotal();
+                default -> throw new JRException("Unknown statement field " + field.getName());
+            };
+        }
+    }
+}
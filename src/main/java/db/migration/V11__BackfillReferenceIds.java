@@ -0,0 +1,65 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Backfills the supplier, product and category IDs of existing purchases and purchase items from their name
+ * snapshots.
+ *
+ * The rows are updated in ID ranges of {@link #BATCH_SIZE}, each committed on its own, so the migration never locks
+ * a whole table and can be resumed after an interruption; rows that already have an ID are skipped. Rows whose name
+ * no longer matches any supplier, product or category keep a {@code null} ID.
+ */
+public class V11__BackfillReferenceIds extends BaseJavaMigration {
+    private static final int BATCH_SIZE = 10000;
+
+    private static final String[][] PURCHASE_TABLES = {{"purchase", "purchase_item"}, {"purchase_archive", "purchase_item_archive"}};
+
+    @Override
+    public boolean canExecuteInTransaction() {
+        return false;
+    }
+
+    @Override
+    public void migrate(Context context) throws SQLException {
+        Connection connection = context.getConnection();
+        for (String[] tables : PURCHASE_TABLES) {
+            backfill(connection, tables[0], "UPDATE " + tables[0] + " p JOIN supplier s ON s.name = p.supplier_name " +
+                    "SET p.supplier_id = s.id WHERE p.id BETWEEN ? AND ? AND p.supplier_id IS NULL");
+            backfill(connection, tables[1], "UPDATE " + tables[1] + " i JOIN product pr ON pr.name = i.product_name " +
+                    "SET i.product_id = pr.id WHERE i.id BETWEEN ? AND ? AND i.product_id IS NULL");
+            backfill(connection, tables[1], "UPDATE " + tables[1] + " i JOIN category c ON c.name = i.product_category " +
+                    "SET i.category_id = c.id WHERE i.id BETWEEN ? AND ? AND i.category_id IS NULL");
+            backfill(connection, tables[1], "UPDATE " + tables[1] + " i JOIN " + tables[0] + " p ON p.id = i.purchase_id " +
+                    "SET i.supplier_id = p.supplier_id WHERE i.id BETWEEN ? AND ? AND i.supplier_id IS NULL");
+        }
+    }
+
+    private void backfill(Connection connection, String table, String update) throws SQLException {
+        long minId;
+        long maxId;
+        try (Statement statement = connection.createStatement();
+             ResultSet range = statement.executeQuery("SELECT MIN(id), MAX(id) FROM " + table)) {
+            range.next();
+            minId = range.getLong(1);
+            maxId = range.getLong(2);
+            if (range.wasNull()) {
+                return;
+            }
+        }
+        try (PreparedStatement statement = connection.prepareStatement(update)) {
+            for (long start = minId; start <= maxId; start += BATCH_SIZE) {
+                statement.setLong(1, start);
+                statement.setLong(2, start + BATCH_SIZE - 1);
+                statement.executeUpdate();
+            }
+        }
+    }
+}
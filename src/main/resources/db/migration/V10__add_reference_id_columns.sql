@@ -0,0 +1,14 @@
+-- Integer references next to the historical name snapshots. They are backfilled by V11 and filled on insert.
+-- The archive tables get the same columns in the same order, so rows can still be moved with INSERT ... SELECT *.
+ALTER TABLE purchase ADD COLUMN supplier_id INT NULL;
+ALTER TABLE purchase_archive ADD COLUMN supplier_id INT NULL;
+ALTER TABLE purchase_item ADD COLUMN product_id INT NULL, ADD COLUMN category_id INT NULL, ADD COLUMN supplier_id INT NULL;
+ALTER TABLE purchase_item_archive ADD COLUMN product_id INT NULL, ADD COLUMN category_id INT NULL, ADD COLUMN supplier_id INT NULL;
+
+-- Statements read the items of a supplier in a date range, ordered by date and purchase.
+CREATE INDEX idx_purchase_item_supplier_id_date ON purchase_item (supplier_id, purchase_date, purchase_id);
+
+-- The chart aggregates group purchase items by these keys; the quantity makes the indexes covering.
+CREATE INDEX idx_purchase_item_product_id_quantity ON purchase_item (product_id, quantity);
+CREATE INDEX idx_purchase_item_category_id_quantity ON purchase_item (category_id, quantity);
+CREATE INDEX idx_purchase_item_supplier_id_quantity ON purchase_item (supplier_id, quantity);
@@ -0,0 +1,23 @@
+-- All-time purchased quantity per category, product and supplier, so the dashboard charts never group purchase_item.
+-- Items without a resolved ID are counted under key_id 0.
+CREATE TABLE IF NOT EXISTS purchase_total (
+    dimension VARCHAR(10) NOT NULL,
+    key_id INT NOT NULL,
+    quantity BIGINT NOT NULL,
+    PRIMARY KEY (dimension, key_id)
+);
+
+INSERT INTO purchase_total (dimension, key_id, quantity)
+SELECT 'CATEGORY', COALESCE(i.category_id, 0), SUM(i.quantity)
+FROM (SELECT category_id, quantity FROM purchase_item UNION ALL SELECT category_id, quantity FROM purchase_item_archive) i
+GROUP BY COALESCE(i.category_id, 0);
+
+INSERT INTO purchase_total (dimension, key_id, quantity)
+SELECT 'PRODUCT', COALESCE(i.product_id, 0), SUM(i.quantity)
+FROM (SELECT product_id, quantity FROM purchase_item UNION ALL SELECT product_id, quantity FROM purchase_item_archive) i
+GROUP BY COALESCE(i.product_id, 0);
+
+INSERT INTO purchase_total (dimension, key_id, quantity)
+SELECT 'SUPPLIER', COALESCE(i.supplier_id, 0), SUM(i.quantity)
+FROM (SELECT supplier_id, quantity FROM purchase_item UNION ALL SELECT supplier_id, quantity FROM purchase_item_archive) i
+GROUP BY COALESCE(i.supplier_id, 0);
@@ -0,0 +1,28 @@
+-- Purchased quantity per day and category, product and supplier, so time series never group purchase_item.
+-- Items without a resolved ID are counted under key_id 0.
+CREATE TABLE IF NOT EXISTS purchase_daily_total (
+    dimension VARCHAR(10) NOT NULL,
+    key_id INT NOT NULL,
+    purchase_date DATE NOT NULL,
+    quantity BIGINT NOT NULL,
+    PRIMARY KEY (dimension, key_id, purchase_date),
+    INDEX idx_purchase_daily_total_dimension_date (dimension, purchase_date, quantity)
+);
+
+INSERT INTO purchase_daily_total (dimension, key_id, purchase_date, quantity)
+SELECT 'CATEGORY', COALESCE(i.category_id, 0), i.purchase_date, SUM(i.quantity)
+FROM (SELECT category_id, purchase_date, quantity FROM purchase_item
+      UNION ALL SELECT category_id, purchase_date, quantity FROM purchase_item_archive) i
+GROUP BY COALESCE(i.category_id, 0), i.purchase_date;
+
+INSERT INTO purchase_daily_total (dimension, key_id, purchase_date, quantity)
+SELECT 'PRODUCT', COALESCE(i.product_id, 0), i.purchase_date, SUM(i.quantity)
+FROM (SELECT product_id, purchase_date, quantity FROM purchase_item
+      UNION ALL SELECT product_id, purchase_date, quantity FROM purchase_item_archive) i
+GROUP BY COALESCE(i.product_id, 0), i.purchase_date;
+
+INSERT INTO purchase_daily_total (dimension, key_id, purchase_date, quantity)
+SELECT 'SUPPLIER', COALESCE(i.supplier_id, 0), i.purchase_date, SUM(i.quantity)
+FROM (SELECT supplier_id, purchase_date, quantity FROM purchase_item
+      UNION ALL SELECT supplier_id, purchase_date, quantity FROM purchase_item_archive) i
+GROUP BY COALESCE(i.supplier_id, 0), i.purchase_date;
@@ -0,0 +1,25 @@
+-- The charts label a total with the current name of its category, product or supplier. Once that has been deleted,
+-- or for items without a resolved ID, they fall back to the name the purchase items were saved with, like before the
+-- IDs were added. The totals are therefore kept per key and saved name.
+DELETE FROM purchase_total;
+ALTER TABLE purchase_total ADD COLUMN name VARCHAR(255) NOT NULL, DROP PRIMARY KEY, ADD PRIMARY KEY (dimension, key_id, name);
+
+INSERT INTO purchase_total (dimension, key_id, name, quantity)
+SELECT 'CATEGORY', COALESCE(i.category_id, 0), i.product_category, SUM(i.quantity)
+FROM (SELECT category_id, product_category, quantity FROM purchase_item
+      UNION ALL SELECT category_id, product_category, quantity FROM purchase_item_archive) i
+GROUP BY COALESCE(i.category_id, 0), i.product_category;
+
+INSERT INTO purchase_total (dimension, key_id, name, quantity)
+SELECT 'PRODUCT', COALESCE(i.product_id, 0), i.product_name, SUM(i.quantity)
+FROM (SELECT product_id, product_name, quantity FROM purchase_item
+      UNION ALL SELECT product_id, product_name, quantity FROM purchase_item_archive) i
+GROUP BY COALESCE(i.product_id, 0), i.product_name;
+
+INSERT INTO purchase_total (dimension, key_id, name, quantity)
+SELECT 'SUPPLIER', COALESCE(i.supplier_id, 0), i.supplier_name, SUM(i.quantity)
+FROM (SELECT i.supplier_id, p.supplier_name, i.quantity FROM purchase_item i
+      JOIN purchase p ON p.id = i.purchase_id AND p.date = i.purchase_date
+      UNION ALL SELECT i.supplier_id, p.supplier_name, i.quantity FROM purchase_item_archive i
+      JOIN purchase_archive p ON p.id = i.purchase_id AND p.date = i.purchase_date) i
+GROUP BY COALESCE(i.supplier_id, 0), i.supplier_name;
@@ -0,0 +1,14 @@
+CREATE TABLE IF NOT EXISTS id_generator
+(
+    name     VARCHAR(64) NOT NULL PRIMARY KEY,
+    next_val BIGINT      NOT NULL
+) ENGINE = InnoDB;
+
+-- Start the pooled generators one full block above the ids handed out by AUTO_INCREMENT so far.
+INSERT INTO id_generator (name, next_val)
+SELECT 'purchase', COALESCE(MAX(id), 0) + 51
+FROM purchase;
+
+INSERT INTO id_generator (name, next_val)
+SELECT 'purchase_item', COALESCE(MAX(id), 0) + 51
+FROM purchase_item;
@@ -0,0 +1,3 @@
+-- Keyset pagination of the purchase list orders by (date, id) and optionally filters by supplier.
+CREATE INDEX idx_purchase_date_id ON purchase (date, id);
+CREATE INDEX idx_purchase_supplier_date_id ON purchase (supplier_name, date, id);
@@ -0,0 +1,21 @@
+CREATE TABLE IF NOT EXISTS stock_movement (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    product_id INT NOT NULL,
+    type VARCHAR(20) NOT NULL,
+    quantity INT NOT NULL,
+    purchase_id INT NULL,
+    created_at DATETIME(6) NOT NULL,
+    PRIMARY KEY (id),
+    INDEX idx_stock_movement_product_created_at (product_id, created_at)
+);
+
+CREATE TABLE IF NOT EXISTS stock_snapshot (
+    product_id INT NOT NULL,
+    snapshot_at DATETIME(6) NOT NULL,
+    stock_quantity INT NOT NULL,
+    PRIMARY KEY (product_id, snapshot_at)
+);
+
+-- The current stock of every existing product becomes its opening movement, so the ledger adds up to the stock.
+INSERT INTO stock_movement (product_id, type, quantity, created_at)
+SELECT id, 'OPENING', stock_quantity, NOW(6) FROM product;
@@ -0,0 +1,3 @@
+ALTER TABLE product ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE category ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE supplier ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,4 @@
+-- The product filter of the purchase search looks up the purchases containing a product by product name.
+-- Date range and supplier filters are served by the indexes of V4: (date, id) for a date range alone and
+-- (supplier_name, date, id) for a supplier with or without a date range.
+CREATE INDEX idx_purchase_item_product_purchase ON purchase_item (product_name, purchase_id);
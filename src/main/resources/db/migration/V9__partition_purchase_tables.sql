@@ -0,0 +1,43 @@
+-- purchase_item gets the date of its purchase, so both tables can be partitioned by the same key and queries with
+-- a date predicate prune the partitions of both tables.
+ALTER TABLE purchase_item ADD COLUMN purchase_date DATE NULL;
+UPDATE purchase_item i JOIN purchase p ON p.id = i.purchase_id SET i.purchase_date = p.date;
+ALTER TABLE purchase_item MODIFY purchase_date DATE NOT NULL;
+
+-- Partitioned InnoDB tables cannot have foreign keys. The index on purchase_item.purchase_id is kept.
+SET @fk = (SELECT CONSTRAINT_NAME FROM information_schema.REFERENTIAL_CONSTRAINTS
+           WHERE CONSTRAINT_SCHEMA = DATABASE() AND TABLE_NAME = 'purchase_item' AND REFERENCED_TABLE_NAME = 'purchase'
+           LIMIT 1);
+SET @sql = IF(@fk IS NULL, 'DO 0', CONCAT('ALTER TABLE purchase_item DROP FOREIGN KEY ', @fk));
+PREPARE statement FROM @sql;
+EXECUTE statement;
+DEALLOCATE PREPARE statement;
+
+-- The partitioning column must be part of every unique key.
+ALTER TABLE purchase DROP PRIMARY KEY, ADD PRIMARY KEY (id, date);
+ALTER TABLE purchase_item DROP PRIMARY KEY, ADD PRIMARY KEY (id, purchase_date);
+
+-- Archive tables with the same structure, without partitions. Purchases older than the archive horizon are moved
+-- here by the archive job. Migrations that change the columns of purchase or purchase_item must change these too.
+CREATE TABLE purchase_archive LIKE purchase;
+CREATE TABLE purchase_item_archive LIKE purchase_item;
+
+-- One partition per year. PurchaseArchiveService splits new years off p_max ahead of time.
+ALTER TABLE purchase PARTITION BY RANGE COLUMNS (date) (
+    PARTITION p_old VALUES LESS THAN ('2024-01-01'),
+    PARTITION p_2024 VALUES LESS THAN ('2025-01-01'),
+    PARTITION p_2025 VALUES LESS THAN ('2026-01-01'),
+    PARTITION p_2026 VALUES LESS THAN ('2027-01-01'),
+    PARTITION p_2027 VALUES LESS THAN ('2028-01-01'),
+    PARTITION p_2028 VALUES LESS THAN ('2029-01-01'),
+    PARTITION p_max VALUES LESS THAN (MAXVALUE)
+);
+ALTER TABLE purchase_item PARTITION BY RANGE COLUMNS (purchase_date) (
+    PARTITION p_old VALUES LESS THAN ('2024-01-01'),
+    PARTITION p_2024 VALUES LESS THAN ('2025-01-01'),
+    PARTITION p_2025 VALUES LESS THAN ('2026-01-01'),
+    PARTITION p_2026 VALUES LESS THAN ('2027-01-01'),
+    PARTITION p_2027 VALUES LESS THAN ('2028-01-01'),
+    PARTITION p_2028 VALUES LESS THAN ('2029-01-01'),
+    PARTITION p_max VALUES LESS THAN (MAXVALUE)
+);
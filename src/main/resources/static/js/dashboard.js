@@ -0,0 +1,11 @@
+fetch('/api/charts/dashboard')
+    .then(response => response.json())
+    .then(dashboard => {
+        document.getElementById('category-count').textContent = dashboard.categoryCount;
+        document.getElementById('product-count').textContent = dashboard.productCount;
+        document.getElementById('supplier-count').textContent = dashboard.supplierCount;
+
+        renderCategoryChart(dashboard.categoryData);
+        renderSupplierChart(dashboard.supplierData);
+        renderProductChart(dashboard.productData);
+    });
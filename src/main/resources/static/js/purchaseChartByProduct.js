@@ -1,54 +1,52 @@
-fetch('/api/charts/purchase-product-data')
-    .then(response => response.json())
-    .then(data => {
-        const labels = Object.keys(data); // Nazivi proizvoda
-        const quantities = Object.values(data); // Količine proizvoda
+function renderProductChart(data) {
+    const labels = Object.keys(data); // Nazivi proizvoda
+    const quantities = Object.values(data); // Količine proizvoda
 
-        const totalQuantity = quantities.reduce((a, b) => a + b, 0); // Ukupna količina proizvoda
+    const totalQuantity = quantities.reduce((a, b) => a + b, 0); // Ukupna količina proizvoda
 
-        const ctx = document.getElementById('product-chart').getContext('2d');
-        new Chart(ctx, {
-            type: 'pie',
-            data: {
-                labels: labels,
-                datasets: [{
-                    label: 'Product Quantity Distribution',
-                    data: quantities,
-                    backgroundColor: [
-                        'rgba(255, 99, 132, 0.2)',
-                        'rgba(54, 162, 235, 0.2)',
-                        'rgba(255, 206, 86, 0.2)',
-                        'rgba(75, 192, 192, 0.2)',
-                        'rgba(153, 102, 255, 0.2)',
-                        'rgba(255, 159, 64, 0.2)'
-                    ],
-                    borderColor: [
-                        'rgba(255, 99, 132, 1)',
-                        'rgba(54, 162, 235, 1)',
-                        'rgba(255, 206, 86, 1)',
-                        'rgba(75, 192, 192, 1)',
-                        'rgba(153, 102, 255, 1)',
-                        'rgba(255, 159, 64, 1)'
-                    ],
-                    borderWidth: 1
-                }]
-            },
-            options: {
-                responsive: true,
-                plugins: {
-                    legend: {
-                        position: 'top',
-                    },
-                    tooltip: {
-                        callbacks: {
-                            label: function (tooltipItem) {
-                                const value = tooltipItem.raw;
-                                const percentage = ((value / totalQuantity) * 100).toFixed(2);
-                                return `${tooltipItem.label}: ${value} (${percentage}%)`;
-                            }
+    const ctx = document.getElementById('product-chart').getContext('2d');
+    new Chart(ctx, {
+        type: 'pie',
+        data: {
+            labels: labels,
+            datasets: [{
+                label: 'Product Quantity Distribution',
+                data: quantities,
+                backgroundColor: [
+                    'rgba(255, 99, 132, 0.2)',
+                    'rgba(54, 162, 235, 0.2)',
+                    'rgba(255, 206, 86, 0.2)',
+                    'rgba(75, 192, 192, 0.2)',
+                    'rgba(153, 102, 255, 0.2)',
+                    'rgba(255, 159, 64, 0.2)'
+                ],
+                borderColor: [
+                    'rgba(255, 99, 132, 1)',
+                    'rgba(54, 162, 235, 1)',
+                    'rgba(255, 206, 86, 1)',
+                    'rgba(75, 192, 192, 1)',
+                    'rgba(153, 102, 255, 1)',
+                    'rgba(255, 159, 64, 1)'
+                ],
+                borderWidth: 1
+            }]
+        },
+        options: {
+            responsive: true,
+            plugins: {
+                legend: {
+                    position: 'top',
+                },
+                tooltip: {
+                    callbacks: {
+                        label: function (tooltipItem) {
+                            const value = tooltipItem.raw;
+                            const percentage = ((value / totalQuantity) * 100).toFixed(2);
+                            return `${tooltipItem.label}: ${value} (${percentage}%)`;
                         }
                     }
                 }
             }
-        });
+        }
     });
+}
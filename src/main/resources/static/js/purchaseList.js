@@ -0,0 +1,109 @@
+// Loads the purchase list page by page from /api/purchase, using the cursor returned with every page
+function initPurchaseList(renderPurchase) {
+    const form = document.getElementById('purchase-filter');
+    const list = document.getElementById('purchase-list');
+    const loadMoreButton = document.getElementById('load-more');
+    let nextCursor = null;
+    let loading = false;
+
+    function buildQuery(cursor) {
+        const params = new URLSearchParams();
+        for (const [key, value] of new FormData(form)) {
+            if (value) {
+                params.append(key, value);
+            }
+        }
+        if (cursor) {
+            params.append('cursor', cursor);
+        }
+        return params;
+    }
+
+    function load(reset) {
+        if (loading) {
+            return;
+        }
+        loading = true;
+        fetch(`/api/purchase?${buildQuery(reset ? null : nextCursor)}`)
+            .then(response => response.json())
+            .then(page => {
+                if (reset) {
+                    list.innerHTML = '';
+                }
+                page.purchases.forEach(purchase => list.appendChild(renderPurchase(purchase)));
+                nextCursor = page.nextCursor;
+                loadMoreButton.classList.toggle('d-none', !nextCursor);
+            })
+            .catch(error => {
+                console.error('Error fetching purchases:', error);
+            })
+            .finally(() => {
+                loading = false;
+            });
+    }
+
+    form.addEventListener('submit', event => {
+        event.preventDefault();
+        load(true);
+    });
+    loadMoreButton.addEventListener('click', () => load(false));
+
+    // Load the next page as soon as the end of the list becomes visible
+    new IntersectionObserver(entries => {
+        if (entries[0].isIntersecting && nextCursor) {
+            load(false);
+        }
+    }).observe(loadMoreButton);
+
+    load(true);
+}
+
+function createElement(tag, className, text) {
+    const element = document.createElement(tag);
+    if (className) {
+        element.className = className;
+    }
+    if (text !== undefined) {
+        element.textContent = text;
+    }
+    return element;
+}
+
+function renderPurchaseRow(purchase) {
+    const row = document.createElement('tr');
+    row.appendChild(createElement('td', 'product-name', purchase.date));
+    row.appendChild(createElement('td', 'product-price', purchase.supplier));
+    row.appendChild(createElement('td', 'product-quantity', purchase.totalAmount + ' €'));
+    const actions = createElement('td', 'action-buttons');
+    const detailsButton = createElement('button', 'btn btn-outline-primary', 'Details');
+    detailsButton.addEventListener('click', () => openModalWithDetails(purchase.id));
+    actions.appendChild(detailsButton);
+    row.appendChild(actions);
+    return row;
+}
+
+function renderInvoiceCard(purchase) {
+    const column = createElement('div', 'col-md-4 mb-4');
+    column.style.marginBottom = '10px';
+    const card = createElement('div', 'card purchase-card');
+    card.style.marginBottom = '10px';
+    const header = createElement('div', 'card-header');
+    header.appendChild(createElement('h5', 'card-title', 'Purchase ID: ' + purchase.id));
+    card.appendChild(header);
+    card.appendChild(document.createElement('br'));
+
+    const body = createElement('div', 'card-body');
+    [['Date: ', purchase.date], ['Supplier: ', purchase.supplier], ['Total Amount: ', purchase.totalAmount + ' €']]
+        .forEach(([label, value]) => {
+            const paragraph = document.createElement('p');
+            paragraph.appendChild(createElement('strong', null, label));
+            paragraph.appendChild(createElement('span', null, value));
+            body.appendChild(paragraph);
+        });
+    const link = createElement('a', 'btn btn-primary mt-3', 'Generate PDF');
+    link.href = `/invoices/view/${purchase.id}`;
+    body.appendChild(link);
+    card.appendChild(body);
+    column.appendChild(card);
+    return column;
+}
@@ -0,0 +1,67 @@
+package com.viser.StockTrade;
+
+import com.viser.StockTrade.dto.PurchaseDto;
+import com.viser.StockTrade.dto.PurchasesItemDto;
+import com.viser.StockTrade.dto.SupplierDto;
+import com.viser.StockTrade.entity.Supplier;
+import com.viser.StockTrade.service.InvoiceRenderer;
+import com.viser.StockTrade.service.InvoiceService;
+import com.viser.StockTrade.service.PurchaseService;
+import com.viser.StockTrade.service.SupplierService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.validation.BeanPropertyBindingResult;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InvoiceETagTest extends MySqlIntegrationTest {
+    @Autowired
+    private InvoiceService invoiceService;
+
+    @Autowired
+    private PurchaseService purchaseService;
+
+    @Autowired
+    private SupplierService supplierService;
+
+    /**
+     * Checks that the ETag of an invoice changes when the supplier printed on it is edited, so cached invoices and
+     * clients holding the old ETag do not keep the old supplier details.
+     */
+    @Test
+    void eTagChangesWhenTheSupplierIsEdited() throws Throwable {
+        List<String> products = createProducts(1);
+        String supplierName = products.getFirst().replaceFirst("-0$", "-supplier");
+        PurchaseDto purchase = new PurchaseDto();
+        purchase.setSupplier(supplierName);
+        purchase.setDate(LocalDate.now().plusDays(1));
+        purchase.setPurchaseItems(List.of(new PurchasesItemDto(products.getFirst(), 2, 1.5)));
+        purchaseService.add(purchase, new BeanPropertyBindingResult(purchase, "purchase"), null);
+        int purchaseId = jdbcTemplate.queryForObject("SELECT id FROM purchase WHERE supplier_name = ?", Integer.class, supplierName);
+
+        InvoiceRenderer renderer = invoiceService.getRenderer(null);
+        String eTag = invoiceService.getETag(purchaseId, renderer);
+        assertThat(invoiceService.getETag(purchaseId, renderer)).isEqualTo(eTag);
+
+        Supplier supplier = supplierService.getByName(supplierName);
+        SupplierDto supplierDto = new SupplierDto();
+        supplierDto.setName(supplierName);
+        supplierDto.setAddress("New address 1");
+        supplierDto.setEmail("new@example.com");
+        supplierService.edit(supplier.getId(), supplierDto, new BeanPropertyBindingResult(supplierDto, "supplier"));
+
+        assertThat(invoiceService.getETag(purchaseId, renderer)).isNotNull().isNotEqualTo(eTag);
+    }
+
+    /**
+     * Checks that a purchase that does not exist has no ETag, so the controller answers 404 even for
+     * {@code If-None-Match: *}.
+     */
+    @Test
+    void missingPurchaseHasNoETag() throws Exception {
+        assertThat(invoiceService.getETag(-1, invoiceService.getRenderer(null))).isNull();
+    }
+}
@@ -0,0 +1,101 @@
+package com.viser.StockTrade;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.MySQLContainer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Base class of the tests that need a real MySQL database.
+ *
+ * The database is a MySQL container started once for all tests. Instead, an existing empty database can be used by
+ * passing its URL with {@code -Dit.datasource.url=...} (and {@code -Dit.datasource.username} and
+ * {@code -Dit.datasource.password}, which default to {@code root}). The tests are skipped if neither Docker nor such
+ * a database is available. The database is migrated by Flyway, starting from the schema that existed before the
+ * first migration.
+ */
+@SpringBootTest
+public abstract class MySqlIntegrationTest {
+    private static final String URL_PROPERTY = "it.datasource.url";
+    private static MySQLContainer<?> mysql;
+
+    @Autowired
+    protected JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void requireDatabase() {
+        assumeTrue(System.getProperty(URL_PROPERTY) != null || DockerClientFactory.instance().isDockerAvailable(),
+                "Neither Docker nor -D" + URL_PROPERTY + " is available");
+    }
+
+    @DynamicPropertySource
+    static void datasourceProperties(DynamicPropertyRegistry registry) {
+        String url;
+        String username;
+        String password;
+        if (System.getProperty(URL_PROPERTY) != null) {
+            url = System.getProperty(URL_PROPERTY);
+            username = System.getProperty("it.datasource.username", "root");
+            password = System.getProperty("it.datasource.password", "root");
+        } else {
+            MySQLContainer<?> container = getContainer();
+            url = container.getJdbcUrl();
+            username = container.getUsername();
+            password = container.getPassword();
+        }
+        String batchedUrl = url + (url.contains("?") ? "&" : "?") + "rewriteBatchedStatements=true";
+        registry.add("spring.datasource.url", () -> batchedUrl);
+        registry.add("spring.datasource.username", () -> username);
+        registry.add("spring.datasource.password", () -> password);
+        registry.add("spring.flyway.url", () -> batchedUrl);
+        registry.add("spring.flyway.user", () -> username);
+        registry.add("spring.flyway.password", () -> password);
+        registry.add("spring.flyway.locations", () -> "classpath:db/baseline,classpath:db/migration");
+        registry.add("spring.jpa.properties.hibernate.show_sql", () -> "false");
+    }
+
+    /**
+     * Creates products with a stock quantity of 0 in a new category and from a new supplier.
+     *
+     * The names are unique, so tests sharing the database do not see each other's products.
+     *
+     * @param count the number of products
+     * @return the names of the products; the supplier is named like the first product with the suffix
+     *         {@code -supplier}
+     */
+    protected List<String> createProducts(int count) {
+        String prefix = UUID.randomUUID().toString();
+        jdbcTemplate.update("INSERT INTO category (name) VALUES (?)", prefix + "-category");
+        jdbcTemplate.update("INSERT INTO supplier (name) VALUES (?)", prefix + "-supplier");
+        List<String> names = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            names.add(prefix + "-" + i);
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO product (name, price, stock_quantity, category_id, supplier_id) "
+                        + "SELECT ?, 1, 0, c.id, s.id FROM category c, supplier s WHERE c.name = ? AND s.name = ?",
+                names, 100, (statement, name) -> {
+                    statement.setString(1, name);
+                    statement.setString(2, prefix + "-category");
+                    statement.setString(3, prefix + "-supplier");
+                });
+        return names;
+    }
+
+    private static synchronized MySQLContainer<?> getContainer() {
+        if (mysql == null) {
+            mysql = new MySQLContainer<>("mysql:8.0.36");
+            mysql.start();
+        }
+        return mysql;
+    }
+}
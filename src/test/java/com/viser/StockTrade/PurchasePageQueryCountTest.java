@@ -0,0 +1,78 @@
+package com.viser.StockTrade;
+
+import com.viser.StockTrade.dto.PurchaseDto;
+import com.viser.StockTrade.dto.PurchaseSummaryDto;
+import com.viser.StockTrade.dto.PurchasesItemDto;
+import com.viser.StockTrade.exceptions.ValidationException;
+import com.viser.StockTrade.repository.PurchaseRepository;
+import com.viser.StockTrade.service.PurchaseService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.validation.BeanPropertyBindingResult;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Import(StatementRecorder.class)
+class PurchasePageQueryCountTest extends MySqlIntegrationTest {
+    @Autowired
+    private PurchaseService purchaseService;
+
+    @Autowired
+    private PurchaseRepository purchaseRepository;
+
+    /**
+     * Checks that a page of purchase summaries is read with a single statement that does not touch the purchase
+     * items, however many items the purchases have.
+     */
+    @Test
+    void pageIsOneStatementWithoutPurchaseItems() {
+        List<String> products = createProducts(30);
+        String supplier = products.getFirst().replaceFirst("-0$", "-supplier");
+        add(products.subList(0, 1), supplier);
+        add(products.subList(0, 30), supplier);
+
+        List<PurchaseSummaryDto> page = new ArrayList<>();
+        List<String> statements = StatementRecorder.record(() ->
+                page.addAll(purchaseRepository.findPage(null, null, supplier, null, false, null, null, 10)));
+
+        assertThat(page).hasSize(2);
+        assertThat(statements).hasSize(1);
+        assertThat(statements.getFirst()).doesNotContain("purchase_item");
+    }
+
+    /**
+     * Checks that filtering the page by a product stays a single statement, with the purchase items read in a
+     * subquery.
+     */
+    @Test
+    void pageFilteredByProductIsOneStatement() {
+        List<String> products = createProducts(30);
+        String supplier = products.getFirst().replaceFirst("-0$", "-supplier");
+        add(products.subList(0, 1), supplier);
+        add(products.subList(1, 30), supplier);
+
+        List<PurchaseSummaryDto> page = new ArrayList<>();
+        List<String> statements = StatementRecorder.record(() ->
+                page.addAll(purchaseRepository.findPage(null, null, supplier, products.get(5), false, null, null, 10)));
+
+        assertThat(page).hasSize(1);
+        assertThat(statements).hasSize(1);
+    }
+
+    private void add(List<String> products, String supplier) {
+        PurchaseDto purchase = new PurchaseDto();
+        purchase.setSupplier(supplier);
+        purchase.setDate(LocalDate.now().plusDays(1));
+        purchase.setPurchaseItems(products.stream().map(product -> new PurchasesItemDto(product, 2, 1.5)).toList());
+        try {
+            purchaseService.add(purchase, new BeanPropertyBindingResult(purchase, "purchase"), null);
+        } catch (ValidationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
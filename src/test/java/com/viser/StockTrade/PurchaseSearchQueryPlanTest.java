@@ -0,0 +1,130 @@
+package com.viser.StockTrade;
+
+import com.viser.StockTrade.repository.PurchaseRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks the query plans of the purchase search for every combination of the date range, supplier and product
+ * filters.
+ *
+ * Criteria values are rendered as literals, so the recorded statements can be explained as they are; MySQL
+ * Connector/J sends them to the server like that anyway. The purchases are spread over enough dates, suppliers and
+ * products for the optimizer to prefer the indexes of V4 and V8 over scanning the tables.
+ */
+@Import(StatementRecorder.class)
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.criteria.value_handling_mode=inline")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class PurchaseSearchQueryPlanTest extends MySqlIntegrationTest {
+    private static final int PURCHASES = 20000;
+    private static final int SUPPLIERS = 50;
+    private static final int PRODUCTS = 500;
+    private static final int DAYS = 1000;
+    private static final LocalDate FIRST_DAY = LocalDate.of(2024, 1, 1);
+
+    @Autowired
+    private PurchaseRepository purchaseRepository;
+
+    private String prefix;
+
+    @BeforeAll
+    void createPurchases() {
+        prefix = UUID.randomUUID().toString();
+        int purchaseId = reserveIds("purchase", PURCHASES);
+        int itemId = reserveIds("purchase_item", PURCHASES * 2);
+        jdbcTemplate.batchUpdate("INSERT INTO purchase (id, date, supplier_name, total_amount) VALUES (?, ?, ?, 10)",
+                IntStream.range(0, PURCHASES).boxed().toList(), 1000, (statement, i) -> {
+                    statement.setInt(1, purchaseId + i);
+                    statement.setObject(2, FIRST_DAY.plusDays(i % DAYS));
+                    statement.setString(3, supplier(i % SUPPLIERS));
+                });
+        jdbcTemplate.batchUpdate("INSERT INTO purchase_item (id, purchase_id, purchase_date, product_name, product_category, "
+                        + "quantity, price) VALUES (?, ?, ?, ?, 'Category', 1, 5)",
+                IntStream.range(0, PURCHASES * 2).boxed().toList(), 1000, (statement, i) -> {
+                    statement.setInt(1, itemId + i);
+                    statement.setInt(2, purchaseId + i / 2);
+                    statement.setObject(3, FIRST_DAY.plusDays(i / 2 % DAYS));
+                    statement.setString(4, product(i % 2 == 0 ? 0 : 1 + i % (PRODUCTS - 1)));
+                });
+        jdbcTemplate.execute("ANALYZE TABLE purchase, purchase_item");
+    }
+
+    @AfterAll
+    void deletePurchases() {
+        jdbcTemplate.update("DELETE FROM purchase_item WHERE product_name LIKE ?", prefix + "-%");
+        jdbcTemplate.update("DELETE FROM purchase WHERE supplier_name LIKE ?", prefix + "-%");
+    }
+
+    /**
+     * Checks that the purchases are read in the order of an index of V4, without sorting them, and that the product
+     * filter looks the items up by the index of V8. The searched product is contained in every purchase, so the page
+     * is only cheap if the purchases are not all fetched and sorted first.
+     */
+    @ParameterizedTest(name = "dates={0}, supplier={1}, product={2}, ascending={3}")
+    @CsvSource({
+            "false, false, false, false, idx_purchase_date_id",
+            "true,  false, false, false, idx_purchase_date_id",
+            "false, true,  false, false, idx_purchase_supplier_date_id",
+            "true,  true,  false, false, idx_purchase_supplier_date_id",
+            "false, false, true,  false, idx_purchase_date_id",
+            "true,  false, true,  false, idx_purchase_date_id",
+            "false, true,  true,  false, idx_purchase_supplier_date_id",
+            "true,  true,  true,  false, idx_purchase_supplier_date_id",
+            "true,  true,  true,  true,  idx_purchase_supplier_date_id",
+    })
+    void searchUsesTheIndexesWithoutSorting(boolean dates, boolean supplier, boolean product, boolean ascending,
+                                            String purchaseIndex) {
+        List<String> statements = StatementRecorder.record(() -> purchaseRepository.findPage(
+                dates ? FIRST_DAY.plusDays(100) : null, dates ? FIRST_DAY.plusDays(400) : null,
+                supplier ? supplier(7) : null, product ? product(0) : null, ascending, null, null, 51));
+        assertThat(statements).hasSize(1);
+
+        List<Map<String, Object>> plan = jdbcTemplate.queryForList("EXPLAIN " + statements.getFirst().replace("?", "51"));
+        List<String> tables = new ArrayList<>();
+        List<String> extras = new ArrayList<>();
+        for (Map<String, Object> row : plan) {
+            String table = String.valueOf(row.get("table"));
+            tables.add(table);
+            if (table.startsWith("p1_0")) {
+                assertThat(row.get("key")).as("index of purchase in %s", plan).isEqualTo(purchaseIndex);
+            } else if (table.startsWith("pi1_0")) {
+                assertThat(row.get("key")).as("index of purchase_item in %s", plan).isEqualTo("idx_purchase_item_product_purchase");
+            }
+            extras.add(String.valueOf(row.get("Extra")));
+        }
+        assertThat(tables.contains("pi1_0")).as("purchase_item in %s", plan).isEqualTo(product);
+        assertThat(extras).noneMatch(extra -> extra.contains("filesort"));
+    }
+
+    /**
+     * Reserves a block of IDs from a table generator, so the inserted rows do not collide with the IDs it hands out.
+     */
+    private int reserveIds(String generator, int count) {
+        Integer next = jdbcTemplate.queryForObject("SELECT next_val FROM id_generator WHERE name = ?", Integer.class, generator);
+        jdbcTemplate.update("UPDATE id_generator SET next_val = ? WHERE name = ?", next + count + 100, generator);
+        return next + 100;
+    }
+
+    private String supplier(int index) {
+        return prefix + "-supplier-" + index;
+    }
+
+    private String product(int index) {
+        return prefix + "-product-" + index;
+    }
+}
@@ -0,0 +1,107 @@
+package com.viser.StockTrade;
+
+import com.viser.StockTrade.dto.PurchaseDto;
+import com.viser.StockTrade.dto.PurchasesItemDto;
+import com.viser.StockTrade.exceptions.ValidationException;
+import com.viser.StockTrade.service.PurchaseService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.validation.BeanPropertyBindingResult;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PurchaseServiceConcurrencyTest extends MySqlIntegrationTest {
+    private static final int PURCHASES = 400;
+    private static final int THREADS = 32;
+    private static final int SEED_STOCK = 1000;
+
+    @Autowired
+    private PurchaseService purchaseService;
+
+    /**
+     * Checks that no stock increment is lost when hundreds of purchases of the same few products are added in
+     * parallel.
+     *
+     * Every purchase contains several of the products in random order, so the purchases also compete for the
+     * same rows in different orders.
+     */
+    @Test
+    void parallelPurchasesAddUpToTheStockQuantity() throws Exception {
+        List<String> products = createProducts(5);
+        String supplier = products.getFirst().replaceFirst("-0$", "-supplier");
+        jdbcTemplate.update("UPDATE product SET stock_quantity = ? WHERE name IN (?, ?, ?, ?, ?)",
+                SEED_STOCK, products.get(0), products.get(1), products.get(2), products.get(3), products.get(4));
+        Map<String, Long> initialVersions = getVersions(products);
+
+        Random random = new Random(42);
+        List<PurchaseDto> purchases = new ArrayList<>(PURCHASES);
+        Map<String, Integer> expectedStock = new HashMap<>();
+        Map<String, Integer> purchasesPerProduct = new HashMap<>();
+        for (int i = 0; i < PURCHASES; i++) {
+            List<String> lines = new ArrayList<>(products);
+            Collections.shuffle(lines, random);
+            List<PurchasesItemDto> items = new ArrayList<>();
+            for (String product : lines.subList(0, 2 + random.nextInt(products.size() - 1))) {
+                int quantity = 1 + random.nextInt(20);
+                items.add(new PurchasesItemDto(product, quantity, 1.5));
+                expectedStock.merge(product, quantity, Integer::sum);
+                purchasesPerProduct.merge(product, 1, Integer::sum);
+            }
+            PurchaseDto purchase = new PurchaseDto();
+            purchase.setSupplier(supplier);
+            purchase.setDate(LocalDate.now().plusDays(1));
+            purchase.setPurchaseItems(items);
+            purchases.add(purchase);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (PurchaseDto purchase : purchases) {
+                results.add(executor.submit(() -> add(purchase)));
+            }
+            for (Future<Boolean> result : results) {
+                assertThat(result.get()).isFalse();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        Map<String, Long> versions = getVersions(products);
+        for (String product : products) {
+            assertThat(jdbcTemplate.queryForObject("SELECT stock_quantity FROM product WHERE name = ?", Integer.class, product))
+                    .as("stock quantity of %s", product)
+                    .isEqualTo(SEED_STOCK + expectedStock.getOrDefault(product, 0));
+            assertThat(versions.get(product) - initialVersions.get(product))
+                    .as("version increments of %s", product)
+                    .isEqualTo(purchasesPerProduct.getOrDefault(product, 0).longValue());
+        }
+    }
+
+    private boolean add(PurchaseDto purchase) {
+        try {
+            return purchaseService.add(purchase, new BeanPropertyBindingResult(purchase, "purchase"), null);
+        } catch (ValidationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Map<String, Long> getVersions(List<String> products) {
+        Map<String, Long> versions = new HashMap<>();
+        for (String product : products) {
+            versions.put(product, jdbcTemplate.queryForObject("SELECT version FROM product WHERE name = ?", Long.class, product));
+        }
+        return versions;
+    }
+}
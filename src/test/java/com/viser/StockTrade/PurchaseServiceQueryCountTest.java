@@ -0,0 +1,75 @@
+package com.viser.StockTrade;
+
+import com.viser.StockTrade.dto.PurchaseDto;
+import com.viser.StockTrade.dto.PurchasesItemDto;
+import com.viser.StockTrade.exceptions.ValidationException;
+import com.viser.StockTrade.service.PurchaseService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.validation.BeanPropertyBindingResult;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Import(StatementRecorder.class)
+class PurchaseServiceQueryCountTest extends MySqlIntegrationTest {
+    /**
+     * The number of IDs the table generators of purchases and purchase items allocate at once.
+     */
+    private static final int ID_ALLOCATION_SIZE = 50;
+
+    @Autowired
+    private PurchaseService purchaseService;
+
+    /**
+     * Checks that adding a purchase runs the same statements for 1, 20 and 200 purchase items.
+     *
+     * Only the allocation of IDs grows with the number of items, by one round trip per {@value #ID_ALLOCATION_SIZE}
+     * IDs, which are shared with the following purchases.
+     */
+    @Test
+    void addRunsTheSameStatementsForAnyNumberOfItems() {
+        List<String> products = createProducts(200);
+        String supplier = products.getFirst().replaceFirst("-0$", "-supplier");
+        add(products.subList(0, 1), supplier);
+
+        List<String> single = StatementRecorder.record(() -> add(products.subList(0, 1), supplier));
+        List<String> twenty = StatementRecorder.record(() -> add(products.subList(0, 20), supplier));
+        List<String> hundreds = StatementRecorder.record(() -> add(products, supplier));
+
+        assertThat(withoutIdAllocation(single)).hasSize(8);
+        assertThat(withoutIdAllocation(twenty)).isEqualTo(withoutIdAllocation(single));
+        assertThat(withoutIdAllocation(hundreds)).isEqualTo(withoutIdAllocation(single));
+        assertThat(idAllocations(hundreds)).isLessThanOrEqualTo(products.size() / ID_ALLOCATION_SIZE + 2);
+    }
+
+    private void add(List<String> products, String supplier) {
+        PurchaseDto purchase = new PurchaseDto();
+        purchase.setSupplier(supplier);
+        purchase.setDate(LocalDate.now().plusDays(1));
+        purchase.setPurchaseItems(products.stream().map(product -> new PurchasesItemDto(product, 2, 1.5)).toList());
+        try {
+            purchaseService.add(purchase, new BeanPropertyBindingResult(purchase, "purchase"), null);
+        } catch (ValidationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Removes the statements allocating IDs, and shortens the parameter lists of {@code IN} conditions, whose length
+     * depends on the number of products looked up.
+     */
+    private List<String> withoutIdAllocation(List<String> statements) {
+        return statements.stream()
+                .filter(sql -> !sql.contains("id_generator"))
+                .map(sql -> sql.replaceAll("in \\(\\?(,\\?)*\\)", "in (?)"))
+                .toList();
+    }
+
+    private long idAllocations(List<String> statements) {
+        return statements.stream().filter(sql -> sql.startsWith("select") && sql.contains("id_generator")).count();
+    }
+}
@@ -0,0 +1,64 @@
+package com.viser.StockTrade;
+
+import com.viser.StockTrade.dto.PurchaseDto;
+import com.viser.StockTrade.dto.PurchasesItemDto;
+import com.viser.StockTrade.exceptions.ValidationException;
+import com.viser.StockTrade.service.ChartService;
+import com.viser.StockTrade.service.PurchaseService;
+import com.viser.StockTrade.service.PurchaseTotalService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.validation.BeanPropertyBindingResult;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PurchaseTotalChartTest extends MySqlIntegrationTest {
+    @Autowired
+    private PurchaseService purchaseService;
+
+    @Autowired
+    private PurchaseTotalService purchaseTotalService;
+
+    @Autowired
+    private ChartService chartService;
+
+    /**
+     * Checks that the quantities of deleted products stay in the product chart under the names their items were
+     * saved with, both from the incrementally maintained totals and after the totals are rebuilt.
+     */
+    @Test
+    void deletedProductsKeepTheirNameAndQuantity() {
+        List<String> products = createProducts(3);
+        String supplier = products.getFirst().replaceFirst("-0$", "-supplier");
+        add(supplier, new PurchasesItemDto(products.get(0), 2, 1.5), new PurchasesItemDto(products.get(1), 3, 1.5));
+        add(supplier, new PurchasesItemDto(products.get(1), 4, 1.5), new PurchasesItemDto(products.get(2), 5, 1.5));
+        jdbcTemplate.update("DELETE FROM product WHERE name IN (?, ?)", products.get(0), products.get(1));
+
+        assertChart(products);
+        purchaseTotalService.rebuild();
+        assertChart(products);
+    }
+
+    private void assertChart(List<String> products) {
+        Map<String, Long> chart = chartService.chartPurchaseByProductData();
+        assertThat(chart).containsEntry(products.get(0), 2L)
+                .containsEntry(products.get(1), 7L)
+                .containsEntry(products.get(2), 5L);
+    }
+
+    private void add(String supplier, PurchasesItemDto... items) {
+        PurchaseDto purchase = new PurchaseDto();
+        purchase.setSupplier(supplier);
+        purchase.setDate(LocalDate.now().plusDays(1));
+        purchase.setPurchaseItems(List.of(items));
+        try {
+            purchaseService.add(purchase, new BeanPropertyBindingResult(purchase, "purchase"), null);
+        } catch (ValidationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.viser.StockTrade;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records the SQL statements that the current thread prepares.
+ *
+ * The data source is wrapped, so the statements of Hibernate, Spring Data and {@code JdbcTemplate} are all recorded.
+ * A statement counts once, no matter how many rows it writes in a batch. Statements of other threads, e.g. of
+ * scheduled jobs, are ignored.
+ */
+@TestConfiguration
+public class StatementRecorder {
+    private static final ThreadLocal<List<String>> STATEMENTS = new ThreadLocal<>();
+
+    @Bean
+    static BeanPostProcessor statementRecordingPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource) {
+                    return proxy(DataSource.class, (proxy, method, args) -> {
+                        Object result = invoke(dataSource, method, args);
+                        return result instanceof Connection connection ? recording(connection) : result;
+                    });
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Runs an operation on the current thread and returns the SQL statements it prepared.
+     *
+     * @param operation the operation to be run
+     * @return the SQL of the statements, in the order they were prepared
+     */
+    public static List<String> record(Runnable operation) {
+        List<String> statements = new ArrayList<>();
+        STATEMENTS.set(statements);
+        try {
+            operation.run();
+        } finally {
+            STATEMENTS.remove();
+        }
+        return statements;
+    }
+
+    private static Connection recording(Connection connection) {
+        return proxy(Connection.class, (proxy, method, args) -> {
+            List<String> statements = STATEMENTS.get();
+            if (statements != null && method.getName().startsWith("prepare") && args[0] instanceof String sql) {
+                statements.add(sql);
+            }
+            return invoke(connection, method, args);
+        });
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    private static Object invoke(Object target, java.lang.reflect.Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
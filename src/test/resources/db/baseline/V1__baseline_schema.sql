@@ -0,0 +1,111 @@
+-- Schema of the tables that existed before the first migration, created by Hibernate in existing installations.
+-- Integration tests start from an empty database, so they need it before db/migration can be applied.
+
+create table category (
+    id integer not null auto_increment,
+    category_icon varchar(255),
+    description varchar(255),
+    name varchar(255),
+    primary key (id)
+) engine=InnoDB;
+
+create table product (
+    category_id integer not null,
+    id integer not null auto_increment,
+    price float(53) not null,
+    stock_quantity integer,
+    supplier_id integer not null,
+    description varchar(255),
+    name varchar(255),
+    primary key (id)
+) engine=InnoDB;
+
+create table purchase (
+    date date not null,
+    id integer not null auto_increment,
+    total_amount float(53) not null,
+    supplier_name varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table purchase_item (
+    id integer not null auto_increment,
+    price float(53) not null,
+    purchase_id integer not null,
+    quantity integer not null,
+    product_category varchar(255) not null,
+    product_name varchar(255) not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table roles (
+    id integer not null auto_increment,
+    name varchar(255),
+    primary key (id)
+) engine=InnoDB;
+
+create table supplier (
+    id integer not null auto_increment,
+    address varchar(255),
+    email varchar(255),
+    name varchar(255),
+    phone varchar(255),
+    primary key (id)
+) engine=InnoDB;
+
+create table user_profile (
+    date_of_birth date,
+    id integer not null auto_increment,
+    user_id integer,
+    address varchar(255),
+    first_name varchar(255),
+    last_name varchar(255),
+    profile_picture varchar(255),
+    gender enum ('MALE','FEMALE'),
+    primary key (id)
+) engine=InnoDB;
+
+create table user_roles (
+    role_id integer not null,
+    user_id integer not null
+) engine=InnoDB;
+
+create table users (
+    id integer not null auto_increment,
+    password varchar(255),
+    username varchar(255),
+    primary key (id)
+) engine=InnoDB;
+
+alter table user_profile 
+   add constraint UK_ebc21hy5j7scdvcjt0jy6xxrv unique (user_id);
+
+alter table product 
+   add constraint FK1mtsbur82frn64de7balymq9s 
+   foreign key (category_id) 
+   references category (id);
+
+alter table product 
+   add constraint FK2kxvbr72tmtscjvyp9yqb12by 
+   foreign key (supplier_id) 
+   references supplier (id);
+
+alter table purchase_item 
+   add constraint FK1mncc5yaore1sibgpj3jc4a7u 
+   foreign key (purchase_id) 
+   references purchase (id);
+
+alter table user_profile 
+   add constraint FKuganfwvnbll4kn2a3jeyxtyi 
+   foreign key (user_id) 
+   references users (id);
+
+alter table user_roles 
+   add constraint FKh8ciramu9cc9q3qcqiv4ue8a6 
+   foreign key (role_id) 
+   references roles (id);
+
+alter table user_roles 
+   add constraint FKhfh9dx7w3ubf1co1vdev94g3f 
+   foreign key (user_id) 
+   references users (id);